@@ -0,0 +1,70 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-rendered rounded-rectangle skins. Each (size, radius, state, scale) is drawn once,
+ * antialiased, into a cached image and blitted on every later paint. The cache is shared by
+ * all components using the same skin, so menu hover and repaint cost only an image copy.
+ * Swing paints on the EDT only, so the cache needs no locking.
+ */
+public class ButtonSkin {
+
+    public enum State { NORMAL, HOVER, PRESSED }
+
+    public static final ButtonSkin TEAL = new ButtonSkin(new Color(47, 141, 159), true);
+    public static final ButtonSkin GREEN = new ButtonSkin(new Color(172, 220, 135), true);
+    public static final ButtonSkin BOX = new ButtonSkin(new Color(38, 123, 153), false);
+
+    private final Color[] fills;
+    private final boolean border;
+    private final Map<Long, BufferedImage> cache = new HashMap<>();
+
+    private ButtonSkin(Color fill, boolean border) {
+        this.fills = new Color[] { fill, fill.brighter(), fill.darker() };
+        this.border = border;
+    }
+
+    public static State stateOf(AbstractButton b) {
+        ButtonModel m = b.getModel();
+        if (m.isArmed() && m.isPressed()) return State.PRESSED;
+        if (m.isRollover()) return State.HOVER;
+        return State.NORMAL;
+    }
+
+    /** Paints the button's current state at its full size. */
+    public void paint(Graphics g, AbstractButton b, int radius) {
+        paint(g, b.getWidth(), b.getHeight(), radius, stateOf(b));
+    }
+
+    public void paint(Graphics g, int w, int h, int radius, State state) {
+        if (w <= 0 || h <= 0) return;
+        // render at device resolution so HiDPI screens get a sharp image
+        AffineTransform tx = ((Graphics2D) g).getTransform();
+        double scale = Math.max(1.0, tx.getScaleX());
+        long key = ((long) w << 48) | ((long) h << 32) | ((long) radius << 16) | ((long) (scale * 100) << 2) | state.ordinal();
+        BufferedImage img = cache.computeIfAbsent(key, k -> render(w, h, radius, state, scale));
+        g.drawImage(img, 0, 0, w, h, null);
+    }
+
+    private BufferedImage render(int w, int h, int radius, State state, double scale) {
+        BufferedImage img = new BufferedImage((int) Math.ceil(w * scale), (int) Math.ceil(h * scale), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = img.createGraphics();
+        g2.scale(scale, scale);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        g2.setColor(fills[state.ordinal()]);
+        g2.fillRoundRect(0, 0, w, h, radius, radius);
+
+        if (border) {
+            g2.setColor(Color.BLACK);
+            g2.setStroke(new BasicStroke(1));
+            g2.drawRoundRect(0, 0, w - 1, h - 1, radius, radius);
+        }
+        g2.dispose();
+        return img;
+    }
+}
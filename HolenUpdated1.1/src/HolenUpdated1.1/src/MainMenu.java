@@ -100,8 +100,7 @@ public class MainMenu extends JFrame {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                g.setColor(new Color(38, 123, 153)); // teal-blue
-                g.fillRoundRect(0, 0, getWidth(), getHeight(), 40, 40);
+                ButtonSkin.BOX.paint(g, getWidth(), getHeight(), 40, ButtonSkin.State.NORMAL); // teal-blue
             }
         };
         box.setOpaque(false);
@@ -16,20 +16,7 @@ public class RoundedButton extends JButton {
 
     @Override
     protected void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g.create();
-
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Background color
-        g2.setColor(new Color(47, 141, 159));
-        g2.fillRoundRect(0, 0, getWidth(), getHeight(), radius, radius);
-
-        // Border
-        g2.setColor(Color.BLACK);
-        g2.setStroke(new BasicStroke(1));
-        g2.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, radius, radius);
-
+        ButtonSkin.TEAL.paint(g, this, radius);
         super.paintComponent(g);
-        g2.dispose();
     }
 }
@@ -0,0 +1,39 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD integration kernel on the JDK Vector API. Processes SPECIES_PREFERRED lanes per
+ * iteration with a scalar tail. Uses plain mul/add (no FMA), so results are bit-identical
+ * to {@link IntegrationKernel.Scalar}.
+ *
+ * Needs --add-modules jdk.incubator.vector at compile and run time; not part of the plain src/
+ * build (see {@link IntegrationKernel} for the commands).
+ */
+final class VectorKernel implements IntegrationKernel {
+    private static final VectorSpecies<Double> S = DoubleVector.SPECIES_PREFERRED;
+    private final IntegrationKernel tail = new IntegrationKernel.Scalar();
+
+    @Override
+    public void integrate(double[] x, double[] y, double[] vx, double[] vy, int from, int to, double dt) {
+        final double decay = HolenGame.Marble.decay(dt);
+        final double stopSq = HolenGame.Marble.STOP_SPEED * HolenGame.Marble.STOP_SPEED;
+        int i = from;
+        int upper = from + S.loopBound(to - from);
+        for (; i < upper; i += S.length()) {
+            DoubleVector vxv = DoubleVector.fromArray(S, vx, i);
+            DoubleVector vyv = DoubleVector.fromArray(S, vy, i);
+            DoubleVector.fromArray(S, x, i).add(vxv.mul(dt)).intoArray(x, i);
+            DoubleVector.fromArray(S, y, i).add(vyv.mul(dt)).intoArray(y, i);
+            vxv = vxv.mul(decay);
+            vyv = vyv.mul(decay);
+            VectorMask<Double> stop = vxv.mul(vxv).add(vyv.mul(vyv)).lt(stopSq);
+            vxv.blend(0.0, stop).intoArray(vx, i);
+            vyv.blend(0.0, stop).intoArray(vy, i);
+        }
+        tail.integrate(x, y, vx, vy, i, to, dt);
+    }
+
+    @Override
+    public String name() { return "vector(" + S.length() + " lanes)"; }
+}
@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Arena files: a small text format for authoring, compiled on first load into a binary cache kept
+ * next to the source (bundled arenas cache under ~/.holen/arenas).
+ *
+ *   # comment
+ *   size 1024 690                 width and height
+ *   spawn 590                     y of the spawn row
+ *   ring 512 330 140              scoring circle, centre and radius; one or more
+ *   wall 40 40 984 40 [e]         segment, restitution e (default 0.8)
+ *   bumper 300 200 18 [e]         round bumper, restitution e (default 1.2)
+ *   poly x1 y1 x2 y2 x3 y3 .. [e] closed polygon; an odd trailing number is e
+ *
+ * Compiled cache (".arenac", big-endian): magic "HOLA", version short, source CRC32 int, width,
+ * height, spawnY doubles, ring count int, rings (cx, cy, r doubles), obstacle flag byte, then
+ * {@link Obstacles#encode} (primitives in tree order with precomputed directions and lengths, the
+ * flattened tree, polygon outlines). A cache whose CRC matches the source is loaded without parsing
+ * or building the tree; otherwise the source is compiled and the cache rewritten.
+ */
+final class ArenaFile {
+    static final int MAGIC = 0x484F4C41; // "HOLA"
+    static final short VERSION = 1;
+    static final String BUILTIN_STANDARD = "STANDARD", BUILTIN_LARGE = "LARGE";
+    static final String[] BUNDLED = {"bumpers", "fortress"};   // src/arenas/<name>.arena
+    static final Path USER_DIR = Paths.get(System.getProperty("user.home"), ".holen", "arenas");
+
+    private ArenaFile() {}
+
+    /** Arena choices for the setup screen: the two built-in tables, the bundled arenas, then ~/.holen/arenas/*.arena. */
+    static List<String> choices() {
+        List<String> names = new ArrayList<>(List.of(BUILTIN_STANDARD, BUILTIN_LARGE));
+        for (String b : BUNDLED) names.add(b.toUpperCase(Locale.ROOT));
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(USER_DIR, "*.arena")) {
+            for (Path p : dir) names.add(p.toString());
+        } catch (NoSuchFileException e) {
+            // no user arenas
+        } catch (IOException e) {
+            System.err.println("user arenas ignored: " + e);
+        }
+        return names;
+    }
+
+    /** Loads a choice; falls back to the standard table (and reports why) if it cannot be read. */
+    static HolenGame.Arena load(String choice) {
+        if (choice.equals(BUILTIN_STANDARD)) return HolenGame.Arena.standard();
+        if (choice.equals(BUILTIN_LARGE)) return HolenGame.Arena.large();
+        JfrEvents.AssetLoad jfr = new JfrEvents.AssetLoad();
+        jfr.begin();
+        try {
+            HolenGame.Arena a;
+            String bundled = choice.toLowerCase(Locale.ROOT);
+            if (List.of(BUNDLED).contains(bundled)) {
+                byte[] src;
+                try (InputStream in = ArenaFile.class.getResourceAsStream("/arenas/" + bundled + ".arena")) {
+                    if (in == null) throw new NoSuchFileException("/arenas/" + bundled + ".arena");
+                    src = in.readAllBytes();
+                }
+                a = load(src, USER_DIR.resolve(bundled + ".arenac"));
+            } else {
+                Path file = Paths.get(choice);
+                a = load(Files.readAllBytes(file), file.resolveSibling(file.getFileName().toString().replaceFirst("\\.arena$", "") + ".arenac"));
+            }
+            if (jfr.shouldCommit()) {
+                jfr.kind = "arena";
+                jfr.path = choice;
+                jfr.entries = a.obstacles == null ? 0 : a.obstacles.size();
+                jfr.commit();
+            }
+            return a;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("arena " + choice + " not loaded, using the standard table: " + e);
+            return HolenGame.Arena.standard();
+        }
+    }
+
+    /** Loads from the compiled cache if it matches the source, else compiles and rewrites the cache. */
+    static HolenGame.Arena load(byte[] source, Path cache) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(source);
+        int sum = (int) crc.getValue();
+        if (Files.isRegularFile(cache)) {
+            try {
+                ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(cache));
+                if (buf.getInt() == MAGIC && buf.getShort() == VERSION && buf.getInt() == sum) return decode(buf);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("arena cache " + cache + " rebuilt: " + e);
+            }
+        }
+        HolenGame.Arena a = parse(new String(source, StandardCharsets.UTF_8));
+        try {
+            GameSave.write(cache, encode(a, sum));
+        } catch (IOException e) {
+            System.err.println("arena cache not written: " + e);
+        }
+        return a;
+    }
+
+    static HolenGame.Arena parse(String text) throws IOException {
+        double width = 0, height = 0, spawnY = -1;
+        List<HolenGame.CircleField> rings = new ArrayList<>();
+        Obstacles.Builder b = new Obstacles.Builder();
+        int lineNo = 0;
+        for (String line : text.split("\n")) {
+            lineNo++;
+            int hash = line.indexOf('#');
+            String[] t = (hash >= 0 ? line.substring(0, hash) : line).trim().split("\\s+");
+            if (t[0].isEmpty()) continue;
+            double[] v = new double[t.length - 1];
+            try {
+                for (int i = 1; i < t.length; i++) v[i - 1] = Double.parseDouble(t[i]);
+            } catch (NumberFormatException e) {
+                throw new IOException("line " + lineNo + ": " + e.getMessage());
+            }
+            switch (t[0]) {
+                case "size":   need(v, 2, lineNo); width = v[0]; height = v[1]; break;
+                case "spawn":  need(v, 1, lineNo); spawnY = v[0]; break;
+                case "ring":   need(v, 3, lineNo); rings.add(new HolenGame.CircleField(v[0], v[1], v[2])); break;
+                case "wall":   need(v, 4, lineNo); b.wall(v[0], v[1], v[2], v[3], v.length > 4 ? v[4] : Obstacles.WALL_RESTITUTION); break;
+                case "bumper": need(v, 3, lineNo); b.bumper(v[0], v[1], v[2], v.length > 3 ? v[3] : Obstacles.BUMPER_RESTITUTION); break;
+                case "poly": {
+                    need(v, 6, lineNo);
+                    double e = v.length % 2 == 1 ? v[v.length - 1] : Obstacles.WALL_RESTITUTION;
+                    b.polygon(java.util.Arrays.copyOf(v, v.length & ~1), e);
+                    break;
+                }
+                default: throw new IOException("line " + lineNo + ": unknown keyword " + t[0]);
+            }
+        }
+        if (width <= 0 || height <= 0) throw new IOException("missing size");
+        if (rings.isEmpty()) throw new IOException("no ring");
+        HolenGame.Arena a = new HolenGame.Arena(width, height);
+        a.rings.addAll(rings);
+        a.spawnY = spawnY >= 0 ? spawnY : height - 100;
+        if (!b.isEmpty()) a.obstacles = b.build();
+        return a;
+    }
+
+    private static void need(double[] v, int n, int lineNo) throws IOException {
+        if (v.length < n) throw new IOException("line " + lineNo + ": expected " + n + " numbers");
+    }
+
+    static ByteBuffer encode(HolenGame.Arena a, int sourceCrc) {
+        ByteBuffer buf = ByteBuffer.allocate(40 + a.rings.size() * 24 + (a.obstacles == null ? 0 : a.obstacles.encodedSize()));
+        buf.putInt(MAGIC).putShort(VERSION).putInt(sourceCrc);
+        buf.putDouble(a.width).putDouble(a.height).putDouble(a.spawnY).putInt(a.rings.size());
+        for (HolenGame.CircleField f : a.rings) buf.putDouble(f.cx).putDouble(f.cy).putDouble(f.r);
+        buf.put((byte) (a.obstacles == null ? 0 : 1));
+        if (a.obstacles != null) a.obstacles.encode(buf);
+        buf.flip();
+        return buf;
+    }
+
+    /** Reads an arena after the cache header. */
+    static HolenGame.Arena decode(ByteBuffer buf) {
+        HolenGame.Arena a = new HolenGame.Arena(buf.getDouble(), buf.getDouble());
+        a.spawnY = buf.getDouble();
+        for (int i = buf.getInt(); i > 0; i--) a.rings.add(new HolenGame.CircleField(buf.getDouble(), buf.getDouble(), buf.getDouble()));
+        if (buf.get() == 1) a.obstacles = Obstacles.decode(buf);
+        return a;
+    }
+}
@@ -0,0 +1,201 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Shot search for HARD bots. Candidate shots (a few of the bot's marbles, a fan of angles around the
+ * nearest circle, several speeds) are each played out to rest on a scratch copy of the board and
+ * scored by the points they win. Results are kept in a {@link ShotCache}, so a board that was
+ * already searched (the opening layout, or a board unchanged after a miss) costs one lookup.
+ *
+ * The game starts a search with {@link #begin} when the bot's reaction delay starts; it runs on a
+ * worker thread over its own copy of the board and is applied with {@link #finish} once it is done,
+ * so the EDT never runs it. {@link #plan} does both on the caller's thread.
+ */
+final class BotSearch {
+    static final int MARBLES = 2;
+    static final int ANGLES = 5;
+    static final double SPREAD = 0.3;           // radians either side of the aim line
+    static final double[] SPEEDS = {5, 10, 16};
+    static final int MAX_TICKS = 1500;
+
+    final ShotCache cache;
+    long lastSearchNanos;                       // time of the last search that missed the cache
+    int lastCandidates;                         // shots simulated by the last plan, 0 on a cache hit
+    boolean lastHit;                            // the last plan came from the cache
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "holen-botsearch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** A plan in progress: a cache hit, or a search (possibly still running on the worker). */
+    static final class Pending {
+        final long key;
+        ShotCache.Shot[] shots;                 // best first; set by the search when it misses the cache
+        boolean searched;
+        int candidates;
+        long nanos;
+        Future<?> task;                         // null unless searching on the worker
+
+        Pending(long key) { this.key = key; }
+
+        boolean done() { return task == null || task.isDone(); }
+    }
+
+    BotSearch(ShotCache cache) { this.cache = cache; }
+
+    /** Sets the velocity of the chosen marble and returns it, or null if the bot has no resting marble. */
+    HolenGame.Marble plan(HolenGame.Game g, HolenGame.BotPlayer bot) {
+        Pending p = new Pending(ShotCache.key(g));
+        p.shots = cache.get(p.key);
+        if (p.shots == null) search(p, g, bot);
+        return finish(g, bot, p);
+    }
+
+    /**
+     * Looks the board up in the cache and, on a miss, starts searching a copy of it on the worker;
+     * onDone runs on the worker once that search has finished (not at all on a hit).
+     */
+    Pending begin(HolenGame.Game g, HolenGame.BotPlayer bot, Runnable onDone) {
+        Pending p = new Pending(ShotCache.key(g));
+        p.shots = cache.get(p.key);
+        if (p.shots == null) {
+            HolenGame.Game copy;
+            try {
+                copy = GameSave.decode(GameSave.encode(g), g.arena.obstacles);
+            } catch (java.io.IOException e) {
+                throw new IllegalStateException(e);
+            }
+            HolenGame.BotPlayer b = (HolenGame.BotPlayer) copy.players.get(g.players.indexOf(bot));
+            p.task = worker.submit(() -> {
+                try {
+                    search(p, copy, b);
+                } finally {
+                    onDone.run();
+                }
+            });
+        }
+        return p;
+    }
+
+    /**
+     * Applies a plan from {@link #begin} to the board it was started on, unchanged since, waiting for
+     * the search if it is still running. Caches a searched result; returns the marble as plan does.
+     */
+    HolenGame.Marble finish(HolenGame.Game g, HolenGame.BotPlayer bot, Pending p) {
+        if (p.task != null) {
+            try {
+                p.task.get();
+            } catch (InterruptedException | ExecutionException e) {
+                System.err.println("bot search failed: " + e);
+                return null;
+            }
+        }
+        lastHit = !p.searched;
+        lastCandidates = p.candidates;
+        if (p.searched) {
+            lastSearchNanos = p.nanos;
+            if (p.shots.length > 0) cache.put(p.key, p.shots);
+        }
+        for (ShotCache.Shot s : p.shots) {
+            HolenGame.Marble m = shooterAt(g, bot, s.x, s.y);
+            if (m == null) continue;
+            m.vx = s.vx;
+            m.vy = s.vy;
+            return m;
+        }
+        return null;
+    }
+
+    /** The bot's resting marble within a quantum of (x, y). */
+    static HolenGame.Marble shooterAt(HolenGame.Game g, HolenGame.BotPlayer bot, double x, double y) {
+        for (HolenGame.Marble m : g.marbles) {
+            if (m.owner == bot && !m.moving() && Math.abs(m.x - x) <= ShotCache.QUANTUM && Math.abs(m.y - y) <= ShotCache.QUANTUM) return m;
+        }
+        return null;
+    }
+
+    /** Searches g into p: up to {@link ShotCache#TOP} shots, best first. */
+    static void search(Pending p, HolenGame.Game g, HolenGame.BotPlayer bot) {
+        long t0 = System.nanoTime();
+        List<HolenGame.Marble> mine = new ArrayList<>();
+        for (HolenGame.Marble m : g.marbles) if (m.owner == bot && !m.moving()) mine.add(m);
+        // closest to a circle first
+        mine.sort((a, b) -> Double.compare(ringDistance(g, a.x, a.y), ringDistance(g, b.x, b.y)));
+
+        ByteBuffer base = GameSave.encode(g);
+        int botIndex = g.players.indexOf(bot);
+        ShotCache.Shot[] best = new ShotCache.Shot[0];
+        for (int k = 0; k < Math.min(MARBLES, mine.size()); k++) {
+            HolenGame.Marble m = mine.get(k);
+            int index = g.marbles.indexOf(m);
+            HolenGame.CircleField target = g.arena.nearestRing(m.x, m.y);
+            double aim = Math.atan2(target.cy - m.y, target.cx - m.x);
+            for (int a = 0; a < ANGLES; a++) {
+                double angle = aim + SPREAD * (2.0 * a / (ANGLES - 1) - 1);
+                for (double speed : SPEEDS) {
+                    double vx = speed * Math.cos(angle), vy = speed * Math.sin(angle);
+                    double score = simulate(base, g.arena.obstacles, index, botIndex, vx, vy);
+                    p.candidates++;
+                    best = insert(best, new ShotCache.Shot(m.x, m.y, vx, vy, score));
+                }
+            }
+        }
+        p.shots = best;
+        p.searched = true;
+        p.nanos = System.nanoTime() - t0;
+    }
+
+    private static ShotCache.Shot[] insert(ShotCache.Shot[] top, ShotCache.Shot s) {
+        int i = top.length;
+        while (i > 0 && top[i - 1].score < s.score) i--;
+        if (i >= ShotCache.TOP) return top;
+        ShotCache.Shot[] out = Arrays.copyOf(top, Math.min(ShotCache.TOP, top.length + 1));
+        System.arraycopy(top, i, out, i + 1, out.length - i - 1);
+        out[i] = s;
+        return out;
+    }
+
+    /**
+     * Plays the shot out on a copy of the board. Score is the bot's points minus the best opponent's
+     * points gained, with a small bonus for the shooter ending near a circle centre.
+     */
+    static double simulate(ByteBuffer base, Obstacles obstacles, int marble, int botIndex, double vx, double vy) {
+        HolenGame.Game s;
+        try {
+            s = GameSave.decode(base.duplicate(), obstacles);
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException(e);
+        }
+        HolenGame.Player bot = s.players.get(botIndex);
+        int[] before = new int[s.players.size()];
+        for (int i = 0; i < before.length; i++) before[i] = s.players.get(i).collected;
+        HolenGame.Marble m = s.marbles.get(marble);
+        m.lastTouchedBy = bot;
+        bot.useThrowable();
+        m.vx = vx;
+        m.vy = vy;
+        for (int t = 0; t < MAX_TICKS; t++) {
+            s.step(1.0);
+            if (!s.moving()) break;
+        }
+        int rival = 0;
+        for (int i = 0; i < before.length; i++) if (i != botIndex) rival = Math.max(rival, s.players.get(i).collected - before[i]);
+        double score = bot.collected - before[botIndex] - rival;
+        if (s.marbles.contains(m)) score -= 0.001 * ringDistance(s, m.x, m.y);
+        else score -= 0.5; // shooter left the arena
+        return score;
+    }
+
+    static double ringDistance(HolenGame.Game g, double x, double y) {
+        HolenGame.CircleField f = g.arena.nearestRing(x, y);
+        return Math.hypot(f.cx - x, f.cy - y);
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sequential-impulse contact solver for the serial step, replacing the single pairwise pass.
+ *
+ * Each step it finds contacts through the spatial grid (pairs touching, or within MARGIN px so a
+ * resting contact survives tiny separations), then:
+ *   1. warm-starts every resting contact with the impulse it ended the previous step with,
+ *   2. runs {@link #iterations} velocity passes, clamping each contact's accumulated impulse at 0,
+ *   3. runs position passes that push out overlap beyond SLOP, a fraction BETA at a time.
+ * Contacts approaching faster than RESTING_SPEED bounce with the old restitution; slower ones get
+ * no bounce, which is what lets a pile come to rest instead of re-launching itself every step.
+ *
+ * Warm-start impulses are not part of the saved state; callers that restore a snapshot call
+ * {@link #reset()} so a restored game continues the same way as a freshly loaded one. That also
+ * means an autosave, or a scratch copy in the bot search or the predict preview, does not continue
+ * bit-exactly from a live board that ran with warm impulses, and resting contacts stop bouncing,
+ * which changes how every game plays. Measured turn lengths did not get shorter (about 500 ticks
+ * either way), so the solver is opt-in and the pairwise pass stays the default.
+ */
+final class ContactSolver {
+    static final double RESTITUTION = 0.9;
+    static final double RESTING_SPEED = 0.5;    // approach speed below which a contact does not bounce
+    static final double SLOP = 0.05;            // overlap left alone, keeps resting contacts stable
+    static final double MARGIN = 0.5;           // near-contacts kept for warm starting
+    static final double BETA = 0.6;             // share of the remaining overlap removed per position pass
+
+    final int iterations;
+    private int nextId = 1;
+    int pairsTested;                            // broad-phase pairs distance-checked in the last step
+
+    // contacts of the current step
+    private int count;
+    private int[] ca = new int[64], cb = new int[64];
+    private double[] nx = new double[64], ny = new double[64], target = new double[64], acc = new double[64];
+    private long[] key = new long[64];
+
+    // previous step's accumulated impulses, open addressing keyed by marble id pair
+    private long[] warmKeys = new long[128];
+    private double[] warmImp = new double[128];
+
+    ContactSolver(int iterations) { this.iterations = iterations; }
+
+    /** -Dholen.contactIterations=N turns the solver on; 0 (the default) keeps the single pairwise pass. */
+    static ContactSolver fromSystemProperty() {
+        int n = Integer.getInteger("holen.contactIterations", 0);
+        return n > 0 ? new ContactSolver(n) : null;
+    }
+
+    /** Forgets warm-start impulses, e.g. after the game state was restored. */
+    void reset() { Arrays.fill(warmKeys, 0); }
+
+    /** Contacts (touching or within MARGIN) of the last step. */
+    int contacts() { return count; }
+
+    void solve(HolenGame.Game g, double dt) {
+        List<HolenGame.Marble> ms = g.marbles;
+        int n = ms.size();
+        for (int i = 0; i < n; i++) if (ms.get(i).contactId == 0) ms.get(i).contactId = nextId++;
+        HolenGame.SpatialGrid grid = g.grid;
+        grid.rebuild(ms);
+
+        // broad phase over neighbouring cells; each pair once (j > i)
+        count = 0;
+        pairsTested = 0;
+        for (int i = 0; i < n; i++) {
+            HolenGame.Marble a = ms.get(i);
+            int c0 = grid.col(a.x), r0 = grid.row(a.y);
+            for (int r = Math.max(0, r0 - 1); r <= Math.min(grid.rows - 1, r0 + 1); r++) {
+                for (int c = Math.max(0, c0 - 1); c <= Math.min(grid.cols - 1, c0 + 1); c++) {
+                    for (int j = grid.head[r * grid.cols + c]; j != -1; j = grid.next[j]) {
+                        if (j <= i) continue;
+                        pairsTested++;
+                        HolenGame.Marble b = ms.get(j);
+                        double dx = b.x - a.x, dy = b.y - a.y;
+                        double reach = a.R + b.R + MARGIN;
+                        if (dx * dx + dy * dy < reach * reach) addContact(g, i, j, a, b, dx, dy, dt);
+                    }
+                }
+            }
+        }
+
+        // warm start resting contacts (targets above were taken from the velocities before this)
+        for (int k = 0; k < count; k++) {
+            double w = acc[k];
+            if (w == 0) continue;
+            HolenGame.Marble a = ms.get(ca[k]), b = ms.get(cb[k]);
+            a.vx -= w * nx[k]; a.vy -= w * ny[k];
+            b.vx += w * nx[k]; b.vy += w * ny[k];
+        }
+
+        // velocity passes
+        for (int it = 0; it < iterations; it++) {
+            for (int k = 0; k < count; k++) {
+                HolenGame.Marble a = ms.get(ca[k]), b = ms.get(cb[k]);
+                double rel = (b.vx - a.vx) * nx[k] + (b.vy - a.vy) * ny[k];
+                double d = 0.5 * (target[k] - rel);      // equal masses: effective mass 1/2
+                double sum = Math.max(0, acc[k] + d);
+                d = sum - acc[k];
+                acc[k] = sum;
+                a.vx -= d * nx[k]; a.vy -= d * ny[k];
+                b.vx += d * nx[k]; b.vy += d * ny[k];
+            }
+        }
+
+        // position passes
+        int passes = Math.max(1, iterations / 2);
+        for (int it = 0; it < passes; it++) {
+            for (int k = 0; k < count; k++) {
+                HolenGame.Marble a = ms.get(ca[k]), b = ms.get(cb[k]);
+                double dx = b.x - a.x, dy = b.y - a.y;
+                double dist = Math.max(0.001, Math.hypot(dx, dy));
+                double pen = a.R + b.R - dist - SLOP;
+                if (pen <= 0) continue;
+                double corr = BETA * pen / 2, ux = dx / dist, uy = dy / dist;
+                a.x -= ux * corr; a.y -= uy * corr;
+                b.x += ux * corr; b.y += uy * corr;
+                g.markMoved(a); g.markMoved(b);
+            }
+        }
+
+        // keep this step's impulses for warm starting the next one
+        if (warmKeys.length < count * 2) {
+            warmKeys = new long[Integer.highestOneBit(count * 4)];
+            warmImp = new double[warmKeys.length];
+        } else {
+            Arrays.fill(warmKeys, 0);
+        }
+        for (int k = 0; k < count; k++) {
+            if (acc[k] == 0) continue;
+            if (acc[k] > 0) {
+                g.markMoved(ms.get(ca[k]));
+                g.markMoved(ms.get(cb[k]));
+            }
+            int mask = warmKeys.length - 1;
+            int s = slot(key[k]) & mask;
+            while (warmKeys[s] != 0) s = (s + 1) & mask;
+            warmKeys[s] = key[k];
+            warmImp[s] = acc[k];
+        }
+    }
+
+    private void addContact(HolenGame.Game g, int i, int j, HolenGame.Marble a, HolenGame.Marble b, double dx, double dy, double dt) {
+        if (count == ca.length) {
+            int cap = count * 2;
+            ca = Arrays.copyOf(ca, cap); cb = Arrays.copyOf(cb, cap);
+            nx = Arrays.copyOf(nx, cap); ny = Arrays.copyOf(ny, cap);
+            target = Arrays.copyOf(target, cap); acc = Arrays.copyOf(acc, cap); key = Arrays.copyOf(key, cap);
+        }
+        double dist = Math.max(0.001, Math.hypot(dx, dy));
+        double ux = dx / dist, uy = dy / dist;
+        double gap = dist - (a.R + b.R);
+        double rel = (b.vx - a.vx) * ux + (b.vy - a.vy) * uy;
+        int k = count++;
+        ca[k] = i; cb[k] = j; nx[k] = ux; ny[k] = uy; acc[k] = 0;
+        key[k] = a.contactId < b.contactId ? (long) a.contactId << 32 | b.contactId : (long) b.contactId << 32 | a.contactId;
+
+        if (gap > 0 && rel * dt >= -gap) {
+            // not touching and not closing the gap this step: may approach up to the gap but not pass it
+            target[k] = -gap / dt;
+            return;
+        }
+        if (rel <= 0) {
+            // touching and not separating: the same credit rules as the old pairwise impulse
+            if (a.lastTouchedBy != null) b.lastTouchedBy = a.lastTouchedBy;
+            else if (a.owner != null) b.lastTouchedBy = a.owner;
+            if (b.lastTouchedBy != null) a.lastTouchedBy = b.lastTouchedBy;
+            g.markMoved(a); g.markMoved(b);
+        }
+        if (rel < -RESTING_SPEED) {
+            target[k] = -RESTITUTION * rel;
+            g.events.publish(HolenGame.EventBus.COLLISION, a, b, null, (a.x + b.x) / 2, (a.y + b.y) / 2);
+            return;
+        }
+        target[k] = 0;
+        acc[k] = warmImpulse(key[k]);
+    }
+
+    private static int slot(long k) {
+        k *= 0x9E3779B97F4A7C15L;
+        return (int) (k ^ (k >>> 32));
+    }
+
+    private double warmImpulse(long k) {
+        int mask = warmKeys.length - 1;
+        for (int s = slot(k) & mask; warmKeys[s] != 0; s = (s + 1) & mask) {
+            if (warmKeys[s] == k) return warmImp[s];
+        }
+        return 0;
+    }
+}
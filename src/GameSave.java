@@ -0,0 +1,214 @@
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compact versioned binary snapshot of a {@link HolenGame.Game}.
+ *
+ * Layout (big-endian):
+ *   header   : magic "HOLN", version short
+ *   game     : mode byte, difficulty byte, turnIndex int, seed long (version 2 on), rng state long
+ *   arena    : width, height, spawnY doubles, ring count int, rings (cx, cy, r doubles),
+ *              obstacle block length int (0 = none), then obstacle hash long and the
+ *              {@link Obstacles#encode} block (version 3 on)
+ *   players  : count int, then per player: bot byte, name (short length + UTF-8), rgb int,
+ *              throwables int, collected int, [bot: accuracy double, reactionTime int], spawn x/y int
+ *   marbles  : count int, then per marble: x, y, vx, vy doubles, insideCircle byte,
+ *              owner index byte, lastTouchedBy index byte (-1 = none)
+ *
+ * Doubles are stored raw, so a restored game continues bit-exactly (with the default pairwise
+ * collisions; the opt-in ContactSolver's warm-start impulses are not saved). Version 1 (no seed;
+ * restored with seed 0) and version 2 (no obstacle block) saves are still read.
+ */
+final class GameSave {
+    static final int MAGIC = 0x484F4C4E; // "HOLN"
+    static final short VERSION = 3;
+    static final int MARBLE_BYTES = 4 * 8 + 3;
+
+    private GameSave() {}
+
+    /** Upper bound on the encoded size of the game. */
+    static int sizeOf(HolenGame.Game g) {
+        int size = 84 + g.arena.rings.size() * 24;
+        if (g.arena.obstacles != null) size += g.arena.obstacles.encodedSize();
+        for (HolenGame.Player p : g.players) size += 40 + 3 * p.name.length();
+        return size + g.marbles.size() * MARBLE_BYTES;
+    }
+
+    static ByteBuffer encode(HolenGame.Game g) {
+        ByteBuffer buf = ByteBuffer.allocate(sizeOf(g));
+        encode(g, buf);
+        buf.flip();
+        return buf;
+    }
+
+    static void encode(HolenGame.Game g, ByteBuffer buf) {
+        buf.putInt(MAGIC).putShort(VERSION);
+        buf.put((byte) g.mode.ordinal()).put((byte) g.difficulty.ordinal());
+        buf.putInt(g.turnIndex).putLong(g.seed).putLong(g.rng.state);
+
+        HolenGame.Arena a = g.arena;
+        buf.putDouble(a.width).putDouble(a.height).putDouble(a.spawnY).putInt(a.rings.size());
+        for (HolenGame.CircleField f : a.rings) buf.putDouble(f.cx).putDouble(f.cy).putDouble(f.r);
+        if (a.obstacles == null) {
+            buf.putInt(0);
+        } else {
+            buf.putInt(a.obstacles.encodedSize()).putLong(a.obstacles.hash);
+            a.obstacles.encode(buf);
+        }
+
+        buf.putInt(g.players.size());
+        for (HolenGame.Player p : g.players) {
+            boolean bot = p instanceof HolenGame.BotPlayer;
+            byte[] name = p.name.getBytes(StandardCharsets.UTF_8);
+            buf.put((byte) (bot ? 1 : 0)).putShort((short) name.length).put(name);
+            buf.putInt(p.color.getRGB()).putInt(p.throwables).putInt(p.collected);
+            if (bot) buf.putDouble(((HolenGame.BotPlayer) p).accuracy).putInt(((HolenGame.BotPlayer) p).reactionTime);
+            Point sp = g.spawn.get(p);
+            buf.putInt(sp.x).putInt(sp.y);
+        }
+
+        buf.putInt(g.marbles.size());
+        for (HolenGame.Marble m : g.marbles) {
+            buf.putDouble(m.x).putDouble(m.y).putDouble(m.vx).putDouble(m.vy);
+            buf.put((byte) (m.insideCircle ? 1 : 0));
+            buf.put((byte) g.players.indexOf(m.owner)).put((byte) g.players.indexOf(m.lastTouchedBy));
+        }
+    }
+
+    static HolenGame.Game decode(ByteBuffer buf) throws IOException { return decode(buf, null); }
+
+    /**
+     * Decodes a save; if its obstacles hash to known's, known is reused instead of decoding them
+     * again (scratch copies of a live board in the bot search and the predict preview).
+     */
+    static HolenGame.Game decode(ByteBuffer buf, Obstacles known) throws IOException {
+        if (buf.getInt() != MAGIC) throw new IOException("not a Holen save");
+        short version = buf.getShort();
+        if (version < 1 || version > VERSION) throw new IOException("unsupported save version " + version);
+        HolenGame.GameMode mode = HolenGame.GameMode.values()[buf.get()];
+        HolenGame.BotDifficulty diff = HolenGame.BotDifficulty.values()[buf.get()];
+        int turnIndex = buf.getInt();
+        long seed = version >= 2 ? buf.getLong() : 0;
+        long rngState = buf.getLong();
+
+        HolenGame.Arena a = new HolenGame.Arena(buf.getDouble(), buf.getDouble());
+        a.spawnY = buf.getDouble();
+        for (int i = buf.getInt(); i > 0; i--) a.rings.add(new HolenGame.CircleField(buf.getDouble(), buf.getDouble(), buf.getDouble()));
+        int obstacleBytes = version >= 3 ? buf.getInt() : 0;
+        if (obstacleBytes > 0) {
+            long hash = buf.getLong();
+            if (known != null && known.hash == hash) {
+                a.obstacles = known;
+                buf.position(buf.position() + obstacleBytes);
+            } else {
+                a.obstacles = Obstacles.decode(buf);
+            }
+        }
+
+        HolenGame.Game g = new HolenGame.Game(mode, diff, a, rngState);
+        g.turnIndex = turnIndex;
+        g.seed = seed;
+        for (int i = buf.getInt(); i > 0; i--) {
+            boolean bot = buf.get() == 1;
+            byte[] name = new byte[buf.getShort()];
+            buf.get(name);
+            String n = new String(name, StandardCharsets.UTF_8);
+            Color color = new Color(buf.getInt(), true);
+            int throwables = buf.getInt(), collected = buf.getInt();
+            HolenGame.Player p;
+            if (bot) {
+                HolenGame.BotPlayer b = new HolenGame.BotPlayer(n, color, throwables, diff);
+                b.accuracy = buf.getDouble();
+                b.reactionTime = buf.getInt();
+                p = b;
+            } else p = new HolenGame.Player(n, color, throwables);
+            p.collected = collected;
+            g.players.add(p);
+            g.spawn.put(p, new Point(buf.getInt(), buf.getInt()));
+        }
+
+        for (int i = buf.getInt(); i > 0; i--) {
+            double x = buf.getDouble(), y = buf.getDouble(), vx = buf.getDouble(), vy = buf.getDouble();
+            boolean inside = buf.get() == 1;
+            int owner = buf.get(), touched = buf.get();
+            HolenGame.Marble m = new HolenGame.Marble(x, y, owner < 0 ? null : g.players.get(owner), inside);
+            m.vx = vx; m.vy = vy;
+            m.lastTouchedBy = touched < 0 ? null : g.players.get(touched);
+            g.marbles.add(m);
+        }
+        g.grid.rebuild(g.marbles);
+        return g;
+    }
+
+    /** Writes the encoded buffer to a temp file and atomically replaces the target. */
+    static void write(Path file, ByteBuffer buf) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static HolenGame.Game read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size());
+            while (buf.hasRemaining() && ch.read(buf) >= 0) { }
+            buf.flip();
+            return decode(buf);
+        }
+    }
+
+    /**
+     * Turn-boundary autosave. The snapshot is encoded on the calling (EDT) thread, which only copies
+     * primitives into a buffer; the file write happens on a single background thread.
+     */
+    static class Autosaver {
+        static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".holen", "autosave.bin");
+
+        final Path file;
+        final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "holen-autosave");
+            t.setDaemon(true);
+            return t;
+        });
+        volatile long lastEncodeNanos;
+
+        Autosaver(Path file) { this.file = file; }
+
+        void save(HolenGame.Game g) {
+            long t0 = System.nanoTime();
+            ByteBuffer buf = encode(g);
+            lastEncodeNanos = System.nanoTime() - t0;
+            io.execute(() -> {
+                try {
+                    write(file, buf);
+                } catch (IOException e) {
+                    System.err.println("autosave failed: " + e);
+                }
+            });
+        }
+
+        /** Drops the autosave once a game is over; queued behind any pending write. */
+        void clear() {
+            io.execute(() -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("autosave delete failed: " + e);
+                }
+            });
+        }
+
+        boolean exists() { return Files.isRegularFile(file); }
+
+        HolenGame.Game load() throws IOException { return read(file); }
+    }
+}
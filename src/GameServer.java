@@ -0,0 +1,256 @@
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Headless multi-room server: many independent {@link HolenGame.Game}s in one JVM.
+ *
+ * Rooms are tasks on a shared tick scheduler (this targets JDK 17, which has no virtual threads).
+ * One clock thread pulses every TICK_MS and hands the tick of each active room to a fixed worker
+ * pool, whose FIFO queue serves the rooms in turn. A room is active only while marbles move or a
+ * shot is queued; a room waiting for a bot's reaction delay or a client's shot is off the active
+ * set, so idle rooms cost nothing per tick. Bot delays are one-shot wake-ups on the clock.
+ *
+ * Backpressure: a room has at most one tick in flight, and a pulse that finds the previous tick
+ * still running is skipped for that room (skipped). Client shots go through a bounded inbox, and
+ * offers beyond INBOX are refused. A tick running longer than TICK_BUDGET_NS counts as an overrun,
+ * and the room then sits out one pulse per whole budget it used (at most MAX_DEFER, counted as
+ * deferred), so an expensive room slows down instead of taking the other rooms' worker time.
+ * Tick latency is measured from the pulse to the end of the room's tick, so it includes queueing.
+ */
+final class GameServer implements AutoCloseable {
+    static final int TICK_MS = 17;
+    static final int INBOX = 8;
+    static final long TICK_BUDGET_NS = 2_000_000;
+    static final int MAX_DEFER = 8;         // pulses an over-budget room sits out, at most
+    static final int AUTOPLAY_MS = 400;     // think time for seats played by the server in autoplay rooms
+
+    final ScheduledExecutorService clock;
+    final ThreadPoolExecutor workers;
+    final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+    final Set<Room> active = ConcurrentHashMap.newKeySet();
+    final AtomicInteger nextId = new AtomicInteger();
+    final LongAdder ticks = new LongAdder(), skipped = new LongAdder(), overruns = new LongAdder(), deferred = new LongAdder();
+    final LongAdder rejected = new LongAdder(), finished = new LongAdder();
+    final Histogram latency = new Histogram();
+    volatile Consumer<Room> onFinish = r -> { };
+
+    GameServer(int threads) {
+        clock = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "holen-server-clock"));
+        AtomicInteger n = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> daemon(r, "holen-server-" + n.incrementAndGet()));
+        clock.scheduleAtFixedRate(this::pulse, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /** Hosts a game. In autoplay rooms the server also plays the human seats, with the bot aim. */
+    Room open(HolenGame.Game g, boolean autoplay) {
+        Room r = new Room(nextId.incrementAndGet(), g, autoplay);
+        rooms.put(r.id, r);
+        r.park();
+        return r;
+    }
+
+    /**
+     * Queues a client shot for the room: the player's marble at the given list index is sent with
+     * (vx, vy). Returns false if the room is gone or its inbox is full. Turn and ownership are
+     * checked on the room's own tick.
+     */
+    boolean shoot(int roomId, int player, int marble, double vx, double vy) {
+        Room r = rooms.get(roomId);
+        return r != null && r.offer(new Shot(player, marble, vx, vy));
+    }
+
+    private void pulse() {
+        long now = System.nanoTime();
+        for (Room r : active) {
+            if (!r.running.compareAndSet(false, true)) {
+                skipped.increment();
+                continue;
+            }
+            if (r.defer > 0) {
+                r.defer--;
+                r.running.set(false);
+                deferred.increment();
+                continue;
+            }
+            r.due = now;
+            workers.execute(r);
+        }
+    }
+
+    @Override
+    public void close() {
+        clock.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /** A queued shot; marble -1 means "let the bot aim". */
+    static final class Shot {
+        final int player, marble;
+        final double vx, vy;
+        Shot(int player, int marble, double vx, double vy) { this.player = player; this.marble = marble; this.vx = vx; this.vy = vy; }
+    }
+
+    final class Room implements Runnable {
+        final int id;
+        final HolenGame.Game game;
+        final boolean autoplay;
+        final AtomicBoolean running = new AtomicBoolean();
+        final ArrayBlockingQueue<Shot> inbox = new ArrayBlockingQueue<>(INBOX);
+        volatile long due;          // pulse time of the tick in flight
+        int defer;                  // pulses left to sit out after an overrun; guarded by running
+        boolean turnShot;           // touched only by the thread running the tick
+        final AtomicBoolean wakePending = new AtomicBoolean();  // a bot or autoplay shot is scheduled
+
+        Room(int id, HolenGame.Game game, boolean autoplay) { this.id = id; this.game = game; this.autoplay = autoplay; }
+
+        boolean offer(Shot s) {
+            if (!inbox.offer(s)) {
+                rejected.increment();
+                return false;
+            }
+            active.add(this);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                System.err.println("room " + id + " closed: " + e);
+                rooms.remove(id);
+                active.remove(this);
+            } finally {
+                long end = System.nanoTime();
+                ticks.increment();
+                latency.record((end - due) / 1000);
+                if (end - start > TICK_BUDGET_NS) {
+                    overruns.increment();
+                    defer = (int) Math.min(MAX_DEFER, (end - start) / TICK_BUDGET_NS);
+                }
+                running.set(false);
+            }
+        }
+
+        /** Same turn logic as GameScreen.tick, without rendering, rewind or autosave. */
+        private void tick() {
+            for (Shot s; (s = inbox.poll()) != null; ) apply(s);
+            game.step(1.0);
+            if (game.moving()) return;
+            if (turnShot) {
+                turnShot = false;
+                game.events.publish(HolenGame.EventBus.TURN_ENDED, null, null, game.getCurrentPlayer(), 0, 0);
+                if (game.allGone()) {
+                    game.events.publish(HolenGame.EventBus.GAME_OVER, null, null, game.leader(), 0, 0);
+                    game.events.dispatch();
+                    rooms.remove(id);
+                    active.remove(this);
+                    finished.increment();
+                    onFinish.accept(this);
+                    return;
+                }
+                game.events.dispatch();
+                game.nextTurn();
+            }
+            park();
+        }
+
+        private void apply(Shot s) {
+            if (turnShot || s.player != game.turnIndex) return;
+            HolenGame.Player p = game.players.get(s.player);
+            if (s.marble < 0) {
+                // like GameScreen, a bot with nothing to shoot still ends its turn
+                double accuracy = p instanceof HolenGame.BotPlayer ? ((HolenGame.BotPlayer) p).accuracy : 0.65;
+                HolenGame.BotPlayer.shoot(game, p, accuracy);
+                turnShot = true;
+                return;
+            }
+            if (s.marble >= game.marbles.size()) return;
+            HolenGame.Marble m = game.marbles.get(s.marble);
+            if (m.owner != p || m.moving()) return;
+            m.vx = s.vx;
+            m.vy = s.vy;
+            m.lastTouchedBy = p;
+            p.useThrowable();
+            turnShot = true;
+        }
+
+        /** Leaves the active set until a shot arrives; bot seats schedule their own shot. */
+        void park() {
+            active.remove(this);
+            if (!inbox.isEmpty()) {
+                active.add(this); // a shot raced in while parking
+                return;
+            }
+            HolenGame.Player p = game.getCurrentPlayer();
+            int delay;
+            if (p instanceof HolenGame.BotPlayer) delay = ((HolenGame.BotPlayer) p).reactionTime;
+            else if (autoplay) delay = AUTOPLAY_MS + ThreadLocalRandom.current().nextInt(AUTOPLAY_MS);
+            else return;
+            // a tick that changed nothing (a refused shot) parks again; keep to one wake-up
+            if (!wakePending.compareAndSet(false, true)) return;
+            int player = game.turnIndex;
+            clock.schedule(() -> {
+                wakePending.set(false);
+                offer(new Shot(player, -1, 0, 0));
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Lock-free log-linear histogram of microsecond values: exact below 64, then 32 sub-buckets per
+     * power of two (about 3% resolution).
+     */
+    static final class Histogram {
+        static final int SUB = 32;
+        final AtomicLongArray counts = new AtomicLongArray(64 + 58 * SUB);
+
+        static int index(long v) {
+            if (v < 64) return (int) Math.max(0, v);
+            int msb = 63 - Long.numberOfLeadingZeros(v);
+            return 64 + (msb - 6) * SUB + (int) ((v >>> (msb - 5)) & (SUB - 1));
+        }
+
+        static long lowerBound(int i) {
+            if (i < 64) return i;
+            int msb = (i - 64) / SUB + 6;
+            return (long) (SUB + (i - 64) % SUB) << (msb - 5);
+        }
+
+        void record(long micros) { counts.incrementAndGet(index(micros)); }
+
+        /** Copies and clears the counts, for per-interval reporting. */
+        long[] drain() {
+            long[] c = new long[counts.length()];
+            for (int i = 0; i < c.length; i++) c[i] = counts.getAndSet(i, 0);
+            return c;
+        }
+
+        static long percentile(long[] c, double q) {
+            long total = 0;
+            for (long x : c) total += x;
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(total * q);
+            long seen = 0;
+            for (int i = 0; i < c.length; i++) {
+                seen += c[i];
+                if (seen >= rank) return lowerBound(i);
+            }
+            return lowerBound(c.length - 1);
+        }
+    }
+}
@@ -0,0 +1,2548 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.font.*;
+import java.awt.geom.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * HolenGameFull.java
+ * Single-file, fully playable test build (PvP / PvB)
+ *
+ * - Arena coordinates independent of the window (standard single circle or large multi-circle arena)
+ * - Camera pan/zoom with viewport culling (wheel zooms, right-drag / arrow keys pan, Home resets)
+ * - Multi-player & multi-bot support (setup)
+ * - Drag-to-shoot with force %, projected path while dragging
+ * - Timestamped input: releases are applied at their sub-tick time; input-to-present latency in the perf overlay
+ * - No outer wall bounce (marbles that go far outside are removed)
+ * - Arena files (src/arenas, ~/.holen/arenas/*.arena) add walls, polygons and bumpers under a BVH, compiled to a cached .arenac
+ * - Throwables decrement immediately on shoot; replacement spawned if player still has throwables
+ * - Integration kernels over flat arrays (Vector API when src-vector is built, see IntegrationKernel) for the tile solver and -Dholen.batchIntegrate
+ * - Elastic-ish collisions, scoring when neutral marbles leave the circle
+ * - Opt-in sequential-impulse contact solver with warm starting and a resting threshold (-Dholen.contactIterations=N; default 0 = pairwise pass)
+ * - Rewind: U undoes the last turn, [ / ] scrub through recent snapshots, Enter resumes, Esc returns to live
+ * - Typed game events (collision, circle-exit, out-of-bounds, stopped, turn-ended, game-over) on a ring-buffer bus
+ * - Turn order sequential across players & bots
+ * - Bot turbo (PvB): FAST runs bot turns at many physics steps per frame, INSTANT shows only the resting board
+ * - Autosave at every turn boundary; RESUME on the menu restores the game exactly
+ * - Match history log with a per-player leaderboard on the result screen
+ * - -Dholen.feed publishes live state to a memory-mapped file (seqlock) for external overlays; see StateFeedDemo
+ * - Every shot is logged to a columnar file (~/.holen/shots.col); H shows the origin heatmap and angle/force histograms
+ * - HARD bots search their shot by simulation; results are kept in a persistent LRU shot cache (F3 shows hit rate)
+ * - Finished games are saved as replays (~/.holen/replays/last.holr); ReplayExport renders them to frames offline
+ * - JFR events (holen.Frame, CollisionStep, BotDecision, Turn, AssetLoad); src/holen.jfc enables them
+ * - P toggles the predict preview: the whole shot simulated with collisions, refined across frames within a time budget
+ * - Soak harness (Soak, run under xvfb-run) plays thousands of games through the UI and fails on resource growth
+ * - Scenarios: macro benchmark of whole games (8-marble break, 500-marble pile, 6 HARD bots, previewed drags) with a history file and regression check
+ * - SPECTATE TABLES: a grid of 16+ autoplayed tables simulated off the EDT; the focused one at 60 Hz, the rest as staggered low-res tiles
+ * - Demand-driven loop: the tick timer parks while the board is at rest and wakes on input or a bot turn
+ * - Render quality governor (antialiasing, preview resolution, HUD detail, sprites); F3 shows the perf overlay
+ * - Start/Back/How-to UI restored and aligned
+ */
+class HolenGame extends JFrame {
+
+    CardLayout card = new CardLayout();
+    JPanel cards = new JPanel(card);
+    GameSave.Autosaver autosaver = new GameSave.Autosaver(GameSave.Autosaver.DEFAULT_FILE);
+    java.util.concurrent.Future<MatchLog> matchLog = autosaver.io.submit(HolenGame::openMatchLog); // indexed off the EDT
+    ShotCache shotCache = loadShotCache();
+    ShotLog shotLog = new ShotLog();
+    ShotAnalytics shotStats = new ShotAnalytics();   // history merged in once loaded, see loadShotStats
+
+    MenuScreen menuScreen = new MenuScreen();
+    DifficultyScreen difficultyScreen = new DifficultyScreen();
+    SetupScreen setupScreen = new SetupScreen();
+    GameScreen gameScreen = new GameScreen();
+    ResultScreen resultScreen = new ResultScreen();
+    SpectatorScreen spectatorScreen = new SpectatorScreen();
+
+    // settings
+    int throwablePerPlayer = 5;
+    int marblesInCircle = 8;
+    int numPlayers = 2;   // used when PvP
+    int numBots = 1;      // used when PvB
+    String arenaChoice = ArenaFile.BUILTIN_STANDARD;
+    BotDifficulty difficulty = BotDifficulty.NORMAL;
+    GameMode mode = GameMode.PVP;
+    BotTurbo turbo = BotTurbo.OFF;
+
+    public HolenGame() {
+        setTitle("Holen Game");
+        setSize(1024, 720); // slightly bigger than default, not true fullscreen
+        setResizable(false);
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                try {
+                    saveShotLog();
+                    saveShotCache().get(2, java.util.concurrent.TimeUnit.SECONDS); // same io thread, so this waits for both
+                } catch (Exception ex) {
+                    System.err.println("save on exit failed: " + ex);
+                }
+            }
+        });
+        loadShotStats();
+
+        cards.add(menuScreen, "menu");
+        cards.add(difficultyScreen, "difficulty");
+        cards.add(setupScreen, "setup");
+        cards.add(gameScreen, "game");
+        cards.add(resultScreen, "result");
+        cards.add(spectatorScreen, "spectate");
+
+        add(cards);
+        card.show(cards, "menu");
+        setVisible(true);
+    }
+
+    /** Persists the bot shot cache; encoded on the caller, written on the autosave thread. */
+    java.util.concurrent.Future<?> saveShotCache() {
+        ByteBuffer buf = shotCache.encode();
+        return autosaver.io.submit(() -> {
+            try {
+                GameSave.write(ShotCache.DEFAULT_FILE, buf);
+            } catch (IOException e) {
+                System.err.println("shot cache save failed: " + e);
+            }
+        });
+    }
+
+    /** Appends the buffered shots to the shot log on the autosave thread. */
+    void saveShotLog() {
+        ByteBuffer block = shotLog.drain();
+        if (block == null) return;
+        autosaver.io.execute(() -> {
+            try {
+                ShotLog.write(ShotLog.DEFAULT_FILE, block);
+            } catch (IOException e) {
+                System.err.println("shot log write failed: " + e);
+            }
+        });
+    }
+
+    /**
+     * Scans the shot history on the io thread, before any new block is appended there, and merges it
+     * into shotStats on the EDT; shots recorded in the meantime are kept.
+     */
+    void loadShotStats() {
+        autosaver.io.execute(() -> {
+            ShotAnalytics loaded = scanShotStats();
+            SwingUtilities.invokeLater(() -> shotStats.merge(loaded));
+        });
+    }
+
+    static ShotAnalytics scanShotStats() {
+        JfrEvents.AssetLoad jfr = new JfrEvents.AssetLoad();
+        jfr.begin();
+        ShotAnalytics stats = new ShotAnalytics();
+        try {
+            ShotLog.scan(ShotLog.DEFAULT_FILE, stats);
+        } catch (IOException e) {
+            System.err.println("shot history ignored: " + e);
+        }
+        if (jfr.shouldCommit()) {
+            jfr.kind = "shot history";
+            jfr.path = ShotLog.DEFAULT_FILE.toString();
+            jfr.entries = stats.shots;
+            jfr.commit();
+        }
+        return stats;
+    }
+
+    /** -Dholen.shotCache=N boards (default 4096). */
+    static ShotCache loadShotCache() {
+        JfrEvents.AssetLoad jfr = new JfrEvents.AssetLoad();
+        jfr.begin();
+        ShotCache cache = ShotCache.load(ShotCache.DEFAULT_FILE, Integer.getInteger("holen.shotCache", 4096));
+        if (jfr.shouldCommit()) {
+            jfr.kind = "shot cache";
+            jfr.path = ShotCache.DEFAULT_FILE.toString();
+            jfr.entries = cache.size();
+            jfr.commit();
+        }
+        return cache;
+    }
+
+    /** Loads a bundled image. */
+    static ImageIcon icon(String path) {
+        JfrEvents.AssetLoad jfr = new JfrEvents.AssetLoad();
+        jfr.begin();
+        ImageIcon icon = new ImageIcon(HolenGame.class.getResource(path));
+        if (jfr.shouldCommit()) {
+            jfr.kind = "image";
+            jfr.path = path;
+            jfr.entries = (long) icon.getIconWidth() * icon.getIconHeight();
+            jfr.commit();
+        }
+        return icon;
+    }
+
+    /** The match history, waiting for it only if it is still being indexed; null if disabled. */
+    MatchLog matchLog() {
+        try {
+            return matchLog.get();
+        } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+            System.err.println("match history unavailable: " + e);
+            return null;
+        }
+    }
+
+    static MatchLog openMatchLog() {
+        try {
+            return MatchLog.open(MatchLog.DEFAULT_FILE);
+        } catch (IOException e) {
+            System.err.println("match history disabled: " + e);
+            return null;
+        }
+    }
+
+    enum BotDifficulty { EASY, NORMAL, HARD }
+    enum GameMode { PVP, PVB }
+    enum BotTurbo { OFF, FAST, INSTANT }
+
+    // ---------- Model classes ----------
+
+    static class Player {
+        String name;
+        Color color;
+        int throwables;
+        int collected;
+        public Player(String name, Color color, int throwables) {
+            this.name = name; this.color = color; this.throwables = throwables; this.collected = 0;
+        }
+        boolean hasMarbles() { return throwables > 0; }
+        void useThrowable() { if (throwables > 0) throwables--; }
+        void collect() { collected++; }
+    }
+
+    static class BotPlayer extends Player {
+        double accuracy;
+        int reactionTime;
+        public BotPlayer(String name, Color color, int throwables, BotDifficulty diff) {
+            super(name, color, throwables);
+            switch(diff){
+                case EASY: accuracy = 0.4; reactionTime = 900; break;
+                case NORMAL: accuracy = 0.65; reactionTime = 650; break;
+                case HARD: accuracy = 0.85; reactionTime = 420; break;
+            }
+        }
+
+        /**
+         * Sends one of p's resting marbles roughly toward the centre of the nearest circle, with aim
+         * jitter scaled by (1 - accuracy). Returns the marble, or null if none is at rest.
+         */
+        static Marble shoot(Game game, Player p, double accuracy) {
+            List<Marble> choices = game.marbles.stream().filter(m -> m.owner == p && !m.moving()).collect(Collectors.toList());
+            if (choices.isEmpty()) return null;
+            Marble chosen = choices.get(game.rng.nextInt(choices.size()));
+
+            CircleField target = game.arena.nearestRing(chosen.x, chosen.y);
+            double aim = Math.atan2(target.cy - chosen.y, target.cx - chosen.x);
+            double angle = aim + (game.rng.nextDouble() - 0.5) * (1.0 - accuracy);
+            double speed = 3 + game.rng.nextDouble() * 7;
+            chosen.vx = speed * Math.cos(angle);
+            chosen.vy = speed * Math.sin(angle);
+            chosen.lastTouchedBy = p;
+            p.useThrowable();
+            return chosen;
+        }
+    }
+
+    static class Marble {
+        static final double DECAY = 0.995;          // per-tick velocity decay
+        static final double STOP_SPEED = 0.03;      // below this the marble is snapped to rest
+        static final double MOVING_SPEED = 0.2;
+        double x, y, vx = 0, vy = 0;
+        double px, py;          // position at the start of the step, swept against obstacles
+        final int R = 12;
+        boolean insideCircle;
+        Player owner;           // owner indicates initial owner (player marble) or null for neutral
+        Player lastTouchedBy;   // who last moved/touched it (for scoring)
+        boolean moved;          // queued in Game.movedList for this step
+        boolean hadVelocity;    // was moving at the start of this step
+        boolean touched;        // overlapped another marble this step (set by TileSolver workers)
+        int contactId;          // stable identity for ContactSolver warm starting (0 = not yet assigned)
+
+        Marble(double x, double y, Player owner, boolean inside) {
+            this.x = x; this.y = y; this.owner = owner; this.insideCircle = inside;
+            this.lastTouchedBy = null;
+        }
+        /** Velocity decay over dt ticks (exactly DECAY for a whole tick). */
+        static double decay(double dt) { return dt == 1.0 ? DECAY : Math.pow(DECAY, dt); }
+
+        void update(double dt) {
+            x += vx * dt; y += vy * dt;
+            double d = decay(dt);
+            vx *= d; vy *= d;
+            if (vx * vx + vy * vy < STOP_SPEED * STOP_SPEED) { vx = 0; vy = 0; }
+        }
+        boolean moving() { return vx * vx + vy * vy > MOVING_SPEED * MOVING_SPEED; }
+    }
+
+    static class CircleField {
+        double cx, cy, r;
+        CircleField(double cx, double cy, double r) { this.cx = cx; this.cy = cy; this.r = r; }
+        boolean inside(double x, double y) { return Math.hypot(x - cx, y - cy) <= r; }
+    }
+
+    /**
+     * Playing area in arena units, independent of the window size.
+     * Marbles further than MARGIN outside the bounds are removed (no wall bounce).
+     */
+    static class Arena {
+        static final double MARGIN = 120;
+        final double width, height;
+        final List<CircleField> rings = new ArrayList<>();
+        double spawnY;
+        Obstacles obstacles;    // walls and bumpers from an arena file; null on the built-in tables
+
+        Arena(double width, double height) { this.width = width; this.height = height; }
+
+        /** The classic table: one circle, same layout as the 1024x720 window. */
+        static Arena standard() {
+            Arena a = new Arena(1024, 690);
+            a.rings.add(new CircleField(512, 330, 140));
+            a.spawnY = 590;
+            return a;
+        }
+
+        /** Tournament table: six circles on a 3x2 grid, spawn row below. */
+        static Arena large() {
+            Arena a = new Arena(2048, 1320);
+            for (int row = 0; row < 2; row++)
+                for (int col = 0; col < 3; col++)
+                    a.rings.add(new CircleField(424 + col * 600, 330 + row * 460, 160));
+            a.spawnY = 1150;
+            return a;
+        }
+
+        boolean outOfBounds(double x, double y) {
+            return x < -MARGIN || x > width + MARGIN || y < -MARGIN || y > height + MARGIN;
+        }
+
+        boolean insideAny(double x, double y) {
+            for (CircleField f : rings) if (f.inside(x, y)) return true;
+            return false;
+        }
+
+        CircleField nearestRing(double x, double y) {
+            CircleField best = rings.get(0);
+            for (CircleField f : rings)
+                if (Math.hypot(x - f.cx, y - f.cy) < Math.hypot(x - best.cx, y - best.cy)) best = f;
+            return best;
+        }
+    }
+
+    /**
+     * Uniform bucket grid over the arena (plus margin), rebuilt after every step.
+     * Used for viewport culling so painting only touches cells that are on screen.
+     */
+    static class SpatialGrid {
+        static final double CELL = 64;
+        final double ox, oy;
+        final int cols, rows;
+        final int[] head;
+        int[] next = new int[64];
+
+        SpatialGrid(Arena a) {
+            ox = -Arena.MARGIN; oy = -Arena.MARGIN;
+            cols = (int) Math.ceil((a.width + 2 * Arena.MARGIN) / CELL) + 1;
+            rows = (int) Math.ceil((a.height + 2 * Arena.MARGIN) / CELL) + 1;
+            head = new int[cols * rows];
+        }
+
+        int col(double x) { return Math.max(0, Math.min(cols - 1, (int) ((x - ox) / CELL))); }
+        int row(double y) { return Math.max(0, Math.min(rows - 1, (int) ((y - oy) / CELL))); }
+
+        void rebuild(List<Marble> marbles) {
+            Arrays.fill(head, -1);
+            if (next.length < marbles.size()) next = new int[Math.max(marbles.size(), next.length * 2)];
+            for (int i = 0; i < marbles.size(); i++) {
+                Marble m = marbles.get(i);
+                int c = row(m.y) * cols + col(m.x);
+                next[i] = head[c];
+                head[c] = i;
+            }
+        }
+    }
+
+    /** Reusable structure-of-arrays copy of marble kinematics, for batch kernels. */
+    static class MarbleArrays {
+        double[] x = new double[0], y = x, vx = x, vy = x;
+
+        void pack(List<Marble> ms) {
+            int n = ms.size();
+            if (x.length < n) {
+                int cap = Math.max(n, x.length * 2);
+                x = new double[cap]; y = new double[cap]; vx = new double[cap]; vy = new double[cap];
+            }
+            for (int i = 0; i < n; i++) {
+                Marble m = ms.get(i);
+                x[i] = m.x; y[i] = m.y; vx[i] = m.vx; vy[i] = m.vy;
+            }
+        }
+
+        void unpack(List<Marble> ms) {
+            for (int i = 0, n = ms.size(); i < n; i++) {
+                Marble m = ms.get(i);
+                m.x = x[i]; m.y = y[i]; m.vx = vx[i]; m.vy = vy[i];
+            }
+        }
+    }
+
+    /**
+     * Allocation-free game event bus. Events are written into preallocated parallel arrays and
+     * dispatched in publish order to every listener on {@link #dispatch()}; if the ring fills up it is
+     * dispatched early instead of growing. Single-threaded: publish and dispatch happen on the
+     * thread that steps the game.
+     */
+    static class EventBus {
+        static final int COLLISION = 0, CIRCLE_EXIT = 1, OUT_OF_BOUNDS = 2, MARBLE_STOPPED = 3, TURN_ENDED = 4, GAME_OVER = 5;
+        static final String[] NAMES = { "collision", "circle-exit", "out-of-bounds", "marble-stopped", "turn-ended", "game-over" };
+
+        /**
+         * a/b: marbles involved (b only for collisions), player: scorer for circle-exit, the player whose
+         * turn ended for turn-ended, the winner for game-over. x/y: where it happened (arena units).
+         */
+        interface Listener { void onEvent(int type, Marble a, Marble b, Player player, double x, double y); }
+
+        static final int CAPACITY = 1024;
+        final int[] type = new int[CAPACITY];
+        final Marble[] a = new Marble[CAPACITY], b = new Marble[CAPACITY];
+        final Player[] player = new Player[CAPACITY];
+        final double[] x = new double[CAPACITY], y = new double[CAPACITY];
+        int count;
+        final List<Listener> listeners = new ArrayList<>();
+
+        void publish(int t, Marble ma, Marble mb, Player p, double px, double py) {
+            if (count == CAPACITY) dispatch();
+            type[count] = t; a[count] = ma; b[count] = mb; player[count] = p; x[count] = px; y[count] = py;
+            count++;
+        }
+
+        void dispatch() {
+            for (int i = 0; i < count; i++) {
+                for (int k = 0; k < listeners.size(); k++) listeners.get(k).onEvent(type[i], a[i], b[i], player[i], x[i], y[i]);
+                a[i] = null; b[i] = null; player[i] = null;
+            }
+            count = 0;
+        }
+    }
+
+    /**
+     * Bounded ring of compact game snapshots for undo and scrubbing. Each slot holds primitive arrays
+     * of marble state plus scores, throwables, turnIndex and RNG state. Slots are allocated once and
+     * only grow if the marble count grows; restoring reuses the game's Marble objects (and a spare
+     * pool for marbles removed since), so it is O(marbles) without reallocation.
+     */
+    static class RewindBuffer {
+        static class Snapshot {
+            double[] x = new double[0], y = x, vx = x, vy = x;
+            byte[] inside = new byte[0], owner = inside, touched = inside;
+            int count;
+            int[] collected = new int[0], throwables = collected;
+            int turnIndex;
+            long rngState;
+            boolean turnStart;      // taken at the start of a turn (undo targets)
+            boolean turnShot;       // a shot was in flight when taken
+
+            void ensure(int marbles, int players) {
+                if (x.length < marbles) {
+                    x = new double[marbles]; y = new double[marbles]; vx = new double[marbles]; vy = new double[marbles];
+                    inside = new byte[marbles]; owner = new byte[marbles]; touched = new byte[marbles];
+                }
+                if (collected.length < players) { collected = new int[players]; throwables = new int[players]; }
+            }
+        }
+
+        final long capBytes;
+        Snapshot[] slots = new Snapshot[0];
+        int head, size;     // head = next slot to write
+        final List<Marble> spare = new ArrayList<>();
+
+        RewindBuffer(long capBytes) { this.capBytes = capBytes; }
+
+        static long bytesPer(int marbles, int players) { return 64 + marbles * (4L * 8 + 3) + players * 8L; }
+
+        /** Sizes the ring for this game so that it stays within the memory cap. */
+        void reset(Game g) {
+            int n = Math.max(2, (int) Math.min(1024, capBytes / bytesPer(g.marbles.size(), g.players.size())));
+            if (slots.length != n) {
+                slots = new Snapshot[n];
+                for (int i = 0; i < n; i++) slots[i] = new Snapshot();
+            }
+            head = 0; size = 0;
+            spare.clear();
+        }
+
+        int size() { return size; }
+
+        /** Logical index 0 = oldest ... size-1 = newest. */
+        Snapshot get(int i) { return slots[(head - size + i + slots.length) % slots.length]; }
+
+        void push(Game g, boolean turnStart, boolean turnShot) {
+            Snapshot s = slots[head];
+            head = (head + 1) % slots.length;
+            size = Math.min(slots.length, size + 1);
+            int n = g.marbles.size(), np = g.players.size();
+            s.ensure(n, np);
+            for (int i = 0; i < n; i++) {
+                Marble m = g.marbles.get(i);
+                s.x[i] = m.x; s.y[i] = m.y; s.vx[i] = m.vx; s.vy[i] = m.vy;
+                s.inside[i] = (byte) (m.insideCircle ? 1 : 0);
+                s.owner[i] = (byte) g.players.indexOf(m.owner);
+                s.touched[i] = (byte) g.players.indexOf(m.lastTouchedBy);
+            }
+            for (int i = 0; i < np; i++) { s.collected[i] = g.players.get(i).collected; s.throwables[i] = g.players.get(i).throwables; }
+            s.count = n;
+            s.turnIndex = g.turnIndex;
+            s.rngState = g.rng.state;
+            s.turnStart = turnStart;
+            s.turnShot = turnShot;
+        }
+
+        /** Drops every snapshot newer than logical index i. */
+        void truncateAfter(int i) {
+            int drop = size - 1 - i;
+            head = (head - drop + slots.length) % slots.length;
+            size -= drop;
+        }
+
+        void restore(int i, Game g) {
+            Snapshot s = get(i);
+            spare.addAll(g.marbles);
+            g.marbles.clear();
+            for (int k = 0; k < s.count; k++) {
+                Marble m = spare.isEmpty() ? new Marble(0, 0, null, false) : spare.remove(spare.size() - 1);
+                m.x = s.x[k]; m.y = s.y[k]; m.vx = s.vx[k]; m.vy = s.vy[k];
+                m.insideCircle = s.inside[k] == 1;
+                m.owner = s.owner[k] < 0 ? null : g.players.get(s.owner[k]);
+                m.lastTouchedBy = s.touched[k] < 0 ? null : g.players.get(s.touched[k]);
+                m.moved = false; m.hadVelocity = false; m.touched = false;
+                g.marbles.add(m);
+            }
+            if (g.contacts != null) g.contacts.reset(); // warm-start impulses are not part of a snapshot
+            for (int k = 0; k < g.players.size(); k++) {
+                g.players.get(k).collected = s.collected[k];
+                g.players.get(k).throwables = s.throwables[k];
+            }
+            g.turnIndex = s.turnIndex;
+            g.rng.state = s.rngState;
+            g.movingCount = 0;
+            for (Marble m : g.marbles) if (m.moving()) g.movingCount++;
+            g.grid.rebuild(g.marbles);
+        }
+    }
+
+    /** Small seedable PRNG (SplitMix64). Its whole state is one long, so saves can restore it exactly. */
+    static class Rng {
+        long state;
+        Rng(long seed) { state = seed; }
+        long nextLong() {
+            long z = (state += 0x9E3779B97F4A7C15L);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+        double nextDouble() { return (nextLong() >>> 11) * 0x1.0p-53; }
+        int nextInt(int bound) { return (int) ((nextLong() >>> 1) % bound); }
+    }
+
+    static class Game {
+        List<Player> players = new ArrayList<>();
+        List<Marble> marbles = new ArrayList<>();
+        Arena arena;
+        CircleField field;      // primary ring (first ring of the arena)
+        SpatialGrid grid;
+        int turnIndex = 0;
+        Map<Player, Point> spawn = new HashMap<>();
+        GameMode mode;
+        BotDifficulty difficulty;
+        long seed;              // initial RNG seed, recorded in the match history
+        Rng rng;                // drives setup and bot shots
+        TileSolver solver;      // optional multi-core integration/collisions (null = serial)
+        ContactSolver contacts = ContactSolver.fromSystemProperty(); // serial collisions (null = single pairwise pass)
+        final MarbleArrays flat = new MarbleArrays();
+        // batch kernel for the serial step (null = Marble.update). Off unless -Dholen.batchIntegrate: through
+        // integrate() the packing costs more than the kernel saves (KernelBench, 50k moving: 17 ns/marble direct, 25 packed)
+        IntegrationKernel kernel = Boolean.getBoolean("holen.batchIntegrate") ? IntegrationKernel.SELECTED : null;
+        final EventBus events = new EventBus();
+        final List<Marble> movedList = new ArrayList<>();   // marbles that moved during the current step
+        int movingCount;        // marbles above MOVING_SPEED after the last step
+
+        Game(GameMode gm, int numPlayersArg, int numBotsArg, int throwables, int inside, BotDifficulty diff) {
+            this(gm, numPlayersArg, numBotsArg, throwables, inside, diff, Arena.standard());
+        }
+
+        Game(GameMode gm, int numPlayersArg, int numBotsArg, int throwables, int inside, BotDifficulty diff, Arena arena) {
+            this(gm, numPlayersArg, numBotsArg, throwables, inside, diff, arena, System.nanoTime());
+        }
+
+        /** Empty game on the given arena; used when restoring a save. */
+        Game(GameMode gm, BotDifficulty diff, Arena arena, long rngState) {
+            this.mode = gm; this.difficulty = diff; this.arena = arena;
+            field = arena.rings.get(0);
+            grid = new SpatialGrid(arena);
+            rng = new Rng(rngState);
+            // scoring: a neutral or player marble knocked out of the circles scores for whoever touched it last
+            events.listeners.add((type, a, b, p, x, y) -> { if (type == EventBus.CIRCLE_EXIT && p != null) p.collect(); });
+        }
+
+        Game(GameMode gm, int numPlayersArg, int numBotsArg, int throwables, int inside, BotDifficulty diff, Arena arena, long seed) {
+            this(gm, diff, arena, seed);
+            this.seed = seed;
+
+            if (gm == GameMode.PVP) {
+                for (int i = 0; i < Math.max(2, numPlayersArg); i++) {
+                    Color col = new Color(80 + rng.nextInt(120), 80 + rng.nextInt(120), 80 + rng.nextInt(120));
+                    players.add(new Player("P" + (i + 1), col, throwables));
+                }
+            } else {
+                // Player first, then bots
+                players.add(new Player("YOU", Color.CYAN, throwables));
+                for (int i = 0; i < Math.max(1, numBotsArg); i++) {
+                    players.add(new BotPlayer("BOT" + (i + 1), Color.RED, throwables, diff));
+                }
+            }
+
+            // neutral marbles (the same count in every ring)
+            for (CircleField f : arena.rings) {
+                for (int i = 0; i < inside; i++) {
+                    double x, y;
+                    int tries = 0;
+                    do {
+                        double a = rng.nextDouble() * 2 * Math.PI;
+                        double d = rng.nextDouble() * (f.r - 20);
+                        x = f.cx + Math.cos(a) * d;
+                        y = f.cy + Math.sin(a) * d;
+                    } while (arena.obstacles != null && arena.obstacles.overlaps(x, y, 12) && ++tries < 50);
+                    marbles.add(new Marble(x, y, null, true));
+                }
+            }
+
+            // spawn positions horizontally below the circles
+            int spacing = 80;
+            int total = players.size();
+            int startX = (int) (arena.width / 2) - spacing * (total - 1) / 2;
+            int y = (int) arena.spawnY;
+            for (Player p : players) {
+                Marble m = new Marble(startX, y, p, false);
+                marbles.add(m);
+                spawn.put(p, new Point(startX, y));
+                startX += spacing;
+            }
+
+            turnIndex = 0;
+            grid.rebuild(marbles);
+        }
+
+        /**
+         * Moves every marble by one tick. Resting marbles are a no-op, so only the moving ones are
+         * visited: through Marble.update, or, with a batch kernel and enough of them, packed into
+         * flat arrays for it.
+         */
+        void integrate(double dt) {
+            for (int i = 0, n = marbles.size(); i < n; i++) {
+                Marble m = marbles.get(i);
+                m.px = m.x; m.py = m.y;
+                m.hadVelocity = m.vx != 0 || m.vy != 0;
+                if (m.hadVelocity) markMoved(m);
+            }
+            int moving = movedList.size();
+            if (kernel == null || moving < IntegrationKernel.MIN_BATCH) {
+                for (int k = 0; k < moving; k++) movedList.get(k).update(dt);
+                return;
+            }
+            flat.pack(movedList);
+            kernel.integrate(flat.x, flat.y, flat.vx, flat.vy, 0, moving, dt);
+            flat.unpack(movedList);
+        }
+
+        static final int NO_CONTACT = 0, OVERLAP = 1, IMPACT = 2;
+
+        /**
+         * Resolves one marble pair: positional correction, elastic-ish impulse, touch propagation.
+         * Returns NO_CONTACT, OVERLAP (separated only) or IMPACT (impulse exchanged).
+         */
+        static int collide(Marble a, Marble b) {
+            double dx = b.x - a.x, dy = b.y - a.y;
+            double dist = Math.hypot(dx, dy);
+            double minDist = a.R + b.R;
+            if (dist < 0.001) dist = 0.001;
+            if (dist < minDist) {
+                double overlap = minDist - dist;
+                double nx = dx / dist, ny = dy / dist;
+                b.x += nx * (overlap / 2.0); b.y += ny * (overlap / 2.0);
+                a.x -= nx * (overlap / 2.0); a.y -= ny * (overlap / 2.0);
+
+                double rvx = b.vx - a.vx, rvy = b.vy - a.vy;
+                double rel = rvx * nx + rvy * ny;
+                if (rel > 0) return OVERLAP;
+                double e = 0.9; // restitution
+                double imp = -(1 + e) * rel / 2.0;
+                a.vx -= imp * nx; a.vy -= imp * ny;
+                b.vx += imp * nx; b.vy += imp * ny;
+
+                if (a.lastTouchedBy != null) b.lastTouchedBy = a.lastTouchedBy;
+                else if (a.owner != null) b.lastTouchedBy = a.owner;
+                if (b.lastTouchedBy != null) a.lastTouchedBy = b.lastTouchedBy;
+                return IMPACT;
+            }
+            return NO_CONTACT;
+        }
+
+        /** Player with the most collected marbles (first one on ties). */
+        Player leader() { return players.stream().max(Comparator.comparingInt(p -> p.collected)).orElse(players.get(0)); }
+
+        Player getCurrentPlayer() { return players.get(turnIndex); }
+        void nextTurn() { turnIndex = (turnIndex + 1) % players.size(); }
+        boolean allGone() { return players.stream().allMatch(p -> !p.hasMarbles()); }
+
+        /** Returns true if any marble was moving after the last step. */
+        boolean moving() { return movingCount > 0; }
+
+        void markMoved(Marble m) {
+            if (m.moved) return;
+            m.moved = true;
+            movedList.add(m);
+        }
+
+        /** Advances the simulation by one tick: integration, collisions, out-of-bounds and scoring. */
+        void step(double dt) {
+            JfrEvents.CollisionStep jfr = new JfrEvents.CollisionStep();
+            jfr.begin();
+            int n = marbles.size(), pairs = 0, touching = 0;
+            if (solver != null) {
+                solver.step(this, dt);
+            } else {
+                // physics update
+                integrate(dt);
+                if (contacts != null) {
+                    contacts.solve(this, dt);
+                    pairs = contacts.pairsTested;
+                    touching = contacts.contacts();
+                } else {
+                    // collisions (pairwise elastic-ish)
+                    pairs = n * (n - 1) / 2;
+                    for (int i = 0; i < n; i++) {
+                        Marble a = marbles.get(i);
+                        for (int j = i + 1; j < n; j++) {
+                            Marble b = marbles.get(j);
+                            int c = collide(a, b);
+                            if (c == NO_CONTACT) continue;
+                            touching++;
+                            markMoved(a); markMoved(b);
+                            if (c == IMPACT) events.publish(EventBus.COLLISION, a, b, null, (a.x + b.x) / 2, (a.y + b.y) / 2);
+                        }
+                    }
+                }
+            }
+            if (arena.obstacles != null) arena.obstacles.collide(movedList);
+            settle();
+            events.dispatch();
+            if (jfr.shouldCommit()) {
+                jfr.solver = solver != null ? "tiles" : contacts != null ? "contact" : "pairwise";
+                jfr.marbles = n;
+                jfr.pairsTested = pairs;
+                jfr.contacts = touching;
+                jfr.commit();
+            }
+        }
+
+        /**
+         * Post-step checks, over the marbles that moved this step only: stopped, out-of-bounds
+         * (removed, owner's replacement spawned) and circle-exit. Resting marbles cannot change any of these.
+         */
+        private void settle() {
+            movingCount = 0;
+            boolean removed = false;
+            for (int k = 0; k < movedList.size(); k++) {
+                Marble m = movedList.get(k);
+                m.moved = false;
+                if (m.hadVelocity && m.vx == 0 && m.vy == 0) events.publish(EventBus.MARBLE_STOPPED, m, null, null, m.x, m.y);
+                m.hadVelocity = false;
+
+                // remove marbles that go far outside the arena (no wall bounce)
+                if (arena.outOfBounds(m.x, m.y)) {
+                    events.publish(EventBus.OUT_OF_BOUNDS, m, null, m.owner, m.x, m.y);
+                    marbles.remove(m);
+                    removed = true;
+                    // spawn replacement if owner still has throwables
+                    Player owner = m.owner;
+                    if (owner != null && owner.hasMarbles()) {
+                        Point sp = spawn.get(owner);
+                        if (sp != null) marbles.add(new Marble(sp.x, sp.y, owner, false));
+                    }
+                    continue;
+                }
+
+                // leaving the circles; scored by the CIRCLE_EXIT listener
+                if (m.insideCircle && !arena.insideAny(m.x, m.y)) {
+                    m.insideCircle = false;
+                    events.publish(EventBus.CIRCLE_EXIT, m, null, m.lastTouchedBy, m.x, m.y);
+                }
+                if (m.moving()) movingCount++;
+            }
+            if (removed || !movedList.isEmpty()) grid.rebuild(marbles);
+            movedList.clear();
+        }
+    }
+
+    /** Pan/zoom view onto the arena. Screen = (arena - origin) * zoom. */
+    static class Camera {
+        static final double MIN_ZOOM = 0.25, MAX_ZOOM = 3.0;
+        double x, y;        // arena coordinate shown at the top-left of the panel
+        double zoom = 1.0;
+
+        void reset(Arena a, int viewW, int viewH) {
+            double fit = Math.min(viewW / a.width, viewH / a.height);
+            // the standard arena is shown 1:1 as before; larger arenas start zoomed out to show everything
+            if (fit >= 0.9) { zoom = 1.0; x = 0; y = 0; return; }
+            zoom = Math.max(MIN_ZOOM, fit);
+            x = (a.width - viewW / zoom) / 2;
+            y = (a.height - viewH / zoom) / 2;
+        }
+
+        void pan(double dxScreen, double dyScreen) { x -= dxScreen / zoom; y -= dyScreen / zoom; }
+
+        /** Zooms by factor keeping the arena point under (sx, sy) fixed on screen. */
+        void zoomAt(double sx, double sy, double factor) {
+            double ax = toArenaX(sx), ay = toArenaY(sy);
+            zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+            x = ax - sx / zoom;
+            y = ay - sy / zoom;
+        }
+
+        double toArenaX(double sx) { return x + sx / zoom; }
+        double toArenaY(double sy) { return y + sy / zoom; }
+        Point toArena(Point p) { return new Point((int) Math.round(toArenaX(p.x)), (int) Math.round(toArenaY(p.y))); }
+
+        void apply(Graphics2D g2) { g2.scale(zoom, zoom); g2.translate(-x, -y); }
+
+        /** Visible arena rectangle for a panel of the given size. */
+        Rectangle2D viewport(int viewW, int viewH) { return new Rectangle2D.Double(x, y, viewW / zoom, viewH / zoom); }
+    }
+
+    // ---------- Rendering support ----------
+
+    /**
+     * Picks a render quality tier from measured paint time. A smoothed paint time above the budget
+     * steps down after DOWN_HOLD frames; one below half the budget steps up after UP_HOLD frames.
+     * The gap between the two thresholds and the longer up-hold keep it from oscillating.
+     */
+    static class RenderGovernor {
+        enum Tier {
+            LOW(false, 4, false, true), MEDIUM(false, 2, true, true), HIGH(true, 1, true, false);
+            final boolean antialias;
+            final int previewStride;    // draw every n-th point of the projected path
+            final boolean fullHud;
+            final boolean sprites;      // blit cached marble images instead of vector ovals
+            Tier(boolean antialias, int previewStride, boolean fullHud, boolean sprites) {
+                this.antialias = antialias; this.previewStride = previewStride; this.fullHud = fullHud; this.sprites = sprites;
+            }
+        }
+
+        interface Listener { void tierChanged(Tier from, Tier to, double avgMs, double budgetMs); }
+
+        static final int DOWN_HOLD = 15, UP_HOLD = 180;
+        final double budgetNanos;
+        Tier tier = Tier.MEDIUM;
+        double avgNanos, lastNanos;
+        int framesSinceChange;
+        final List<Listener> listeners = new ArrayList<>();
+
+        RenderGovernor(double budgetMs) { budgetNanos = budgetMs * 1e6; }
+
+        double avgMs() { return avgNanos / 1e6; }
+        double budgetMs() { return budgetNanos / 1e6; }
+
+        void record(long paintNanos) {
+            lastNanos = paintNanos;
+            avgNanos = avgNanos == 0 ? paintNanos : avgNanos * 0.9 + paintNanos * 0.1;
+            framesSinceChange++;
+            if (avgNanos > budgetNanos && framesSinceChange >= DOWN_HOLD && tier.ordinal() > 0) {
+                change(Tier.values()[tier.ordinal() - 1]);
+            } else if (avgNanos < budgetNanos * 0.5 && framesSinceChange >= UP_HOLD && tier.ordinal() < Tier.values().length - 1) {
+                change(Tier.values()[tier.ordinal() + 1]);
+            }
+        }
+
+        private void change(Tier to) {
+            Tier from = tier;
+            tier = to;
+            framesSinceChange = 0;
+            for (Listener l : listeners) l.tierChanged(from, to, avgMs(), budgetMs());
+        }
+    }
+
+    /**
+     * Pointer input for the game screen. Pointer samples are timestamped into a short history ring,
+     * shots are queued with their release time so the loop can apply each one at the sub-tick instant it
+     * happened, and input-to-present latency is sampled for the perf overlay: from the event's own
+     * timestamp to the moment the back buffer of the paint that showed it has been blitted and synced
+     * (display scan-out is not included). Everything runs on the EDT, so no locking is needed.
+     */
+    static class InputPipeline {
+        static final int HISTORY = 32, SHOTS = 16, LATENCIES = 256;
+        static final long RELEASE_WINDOW_NS = 30_000_000L;
+
+        // pointer history (arena coordinates)
+        final long[] ht = new long[HISTORY];
+        final double[] hx = new double[HISTORY], hy = new double[HISTORY];
+        int hHead, hCount;
+
+        // queued shots
+        final long[] st = new long[SHOTS];
+        final Marble[] sm = new Marble[SHOTS];
+        final double[] svx = new double[SHOTS], svy = new double[SHOTS];
+        int sHead, sCount;
+
+        // input-to-present latency
+        long pendingInputNanos;     // oldest input not yet painted
+        final long[] lat = new long[LATENCIES];
+        int latCount, latHead;
+
+        void reset() { hCount = 0; sCount = 0; pendingInputNanos = 0; Arrays.fill(sm, null); }
+
+        void sample(long t, double x, double y) {
+            hHead = (hHead + 1) % HISTORY;
+            ht[hHead] = t; hx[hHead] = x; hy[hHead] = y;
+            hCount = Math.min(HISTORY, hCount + 1);
+            if (pendingInputNanos == 0) pendingInputNanos = t;
+        }
+
+        /**
+         * Release point filtered over the last RELEASE_WINDOW_NS of samples, so the small slip as the
+         * button lifts does not skew the aim. Falls back to the latest sample.
+         */
+        Point2D releasePoint(long releaseNanos) {
+            double sx = 0, sy = 0;
+            int n = 0;
+            for (int k = 0; k < hCount; k++) {
+                int i = (hHead - k + HISTORY) % HISTORY;
+                if (releaseNanos - ht[i] > RELEASE_WINDOW_NS) break;
+                sx += hx[i]; sy += hy[i]; n++;
+            }
+            if (n == 0) return new Point2D.Double(hx[hHead], hy[hHead]);
+            return new Point2D.Double(sx / n, sy / n);
+        }
+
+        void queueShot(long t, Marble m, double vx, double vy) {
+            if (sCount == SHOTS) return; // one shot per turn in practice; drop rather than grow
+            int i = (sHead + sCount) % SHOTS;
+            st[i] = t; sm[i] = m; svx[i] = vx; svy[i] = vy;
+            sCount++;
+        }
+
+        boolean hasShot() { return sCount > 0; }
+        long shotTime() { return st[sHead]; }
+
+        /** Applies the oldest queued shot to its marble and removes it from the queue. */
+        Marble applyShot() {
+            Marble m = sm[sHead];
+            m.vx = svx[sHead]; m.vy = svy[sHead];
+            sm[sHead] = null;
+            sHead = (sHead + 1) % SHOTS;
+            sCount--;
+            return m;
+        }
+
+        /** Called from paintComponent: hands over the oldest unpainted input's time (0 if none). */
+        long painted() {
+            long t = pendingInputNanos;
+            pendingInputNanos = 0;
+            return t;
+        }
+
+        /** Records the latency of an input whose paint has been shown. */
+        void presented(long inputNanos, long now) {
+            lat[latHead] = now - inputNanos;
+            latHead = (latHead + 1) % LATENCIES;
+            latCount = Math.min(LATENCIES, latCount + 1);
+        }
+
+        /**
+         * An input event's time on the System.nanoTime clock. AWT stamps events in epoch millis when
+         * the OS delivers them, so mapping that back counts the time spent in the event queue; the
+         * cost is millisecond resolution, which is well under a tick for the sub-tick release.
+         */
+        static long eventNanos(InputEvent e) {
+            long now = System.nanoTime();
+            return now - Math.max(0, System.currentTimeMillis() - e.getWhen()) * 1_000_000L;
+        }
+
+        double latencyAvgMs() {
+            long sum = 0;
+            for (int i = 0; i < latCount; i++) sum += lat[i];
+            return latCount == 0 ? 0 : sum / 1e6 / latCount;
+        }
+
+        double latencyP95Ms() {
+            if (latCount == 0) return 0;
+            long[] sorted = Arrays.copyOf(lat, latCount);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(latCount - 1, Math.ceil(latCount * 0.95) - 1)] / 1e6;
+        }
+    }
+
+    /** Pre-rendered marble images, one per colour, for the sprite quality tiers. */
+    static class MarbleSprites {
+        final Map<Integer, java.awt.image.BufferedImage> cache = new HashMap<>();
+
+        java.awt.image.BufferedImage get(Color c, int r) {
+            return cache.computeIfAbsent(c.getRGB(), k -> {
+                java.awt.image.BufferedImage img = new java.awt.image.BufferedImage(2 * r + 2, 2 * r + 2, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = img.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setColor(c);
+                g.fillOval(0, 0, 2 * r, 2 * r);
+                g.setColor(Color.BLACK);
+                g.drawOval(0, 0, 2 * r, 2 * r);
+                g.dispose();
+                return img;
+            });
+        }
+    }
+
+    /**
+     * One line of HUD text kept as a laid-out GlyphVector. The caller rebuilds the string and its
+     * layout only when {@link #stale} says the row's owner or key (or the target's render context)
+     * changed; otherwise painting the row draws the cached glyphs.
+     */
+    static class TextRow {
+        Object owner;
+        long key;
+        GlyphVector glyphs;
+
+        /** True if the row must be rebuilt for this owner and key on this target. */
+        boolean stale(Graphics2D g2, Object owner, long key, Font font) {
+            return glyphs == null || owner != this.owner || key != this.key || glyphs.getFont() != font
+                    || !glyphs.getFontRenderContext().equals(g2.getFontRenderContext());
+        }
+
+        void set(Graphics2D g2, Object owner, long key, Font font, String text) {
+            this.owner = owner;
+            this.key = key;
+            glyphs = font.createGlyphVector(g2.getFontRenderContext(), text);
+        }
+
+        void draw(Graphics2D g2, float x, float baseline) { g2.drawGlyphVector(glyphs, x, baseline); }
+    }
+
+    /**
+     * Board and HUD drawing shared by GameScreen and the offscreen replay exporter. Holds a sprite
+     * cache and the HUD rows, so use one instance per thread.
+     */
+    static class GameRenderer {
+        static final Font HUD_FONT = new Font("Arial", Font.BOLD, 18);
+        static final Font LABEL_FONT = new Font("Arial", Font.BOLD, 16);      // score popups, force
+        static final Font BANNER_FONT = new Font("Arial", Font.BOLD, 20);
+        static final Font NOTE_FONT = new Font("Arial", Font.PLAIN, 12);
+        static final Font PERF_FONT = new Font("Monospaced", Font.PLAIN, 12);
+        final MarbleSprites sprites = new MarbleSprites();
+        final List<TextRow> scoreRows = new ArrayList<>();
+        final TextRow turnRow = new TextRow(), forceRow = new TextRow();
+        int hudRebuilds;        // rows re-laid out since start; F3 shows it
+
+        /** Circles and marbles, in arena coordinates (camera transform already applied), culled to view. */
+        void drawBoard(Graphics2D g2, Game game, Rectangle2D view, RenderGovernor.Tier q) {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, q.antialias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+
+            // draw circle fields that intersect the viewport
+            for (CircleField f : game.arena.rings) {
+                if (!view.intersects(f.cx - f.r, f.cy - f.r, f.r * 2, f.r * 2)) continue;
+                g2.setColor(new Color(80, 80, 80));
+                g2.fillOval((int) (f.cx - f.r), (int) (f.cy - f.r), (int) (f.r * 2), (int) (f.r * 2));
+                g2.setColor(Color.WHITE);
+                g2.drawOval((int) (f.cx - f.r), (int) (f.cy - f.r), (int) (f.r * 2), (int) (f.r * 2));
+            }
+            if (game.arena.obstacles != null) drawObstacles(g2, game.arena.obstacles, view);
+
+            // draw marbles, visiting only grid cells that overlap the viewport (padded by a marble radius)
+            SpatialGrid grid = game.grid;
+            int c0 = grid.col(view.getMinX() - 12), c1 = grid.col(view.getMaxX() + 12);
+            int r0 = grid.row(view.getMinY() - 12), r1 = grid.row(view.getMaxY() + 12);
+            for (int row = r0; row <= r1; row++) {
+                for (int col = c0; col <= c1; col++) {
+                    for (int i = grid.head[row * grid.cols + col]; i != -1; i = grid.next[i]) {
+                        Marble m = game.marbles.get(i);
+                        Color c = m.owner != null ? m.owner.color : Color.YELLOW;
+                        if (q.sprites) {
+                            g2.drawImage(sprites.get(c, m.R), (int) (m.x - m.R), (int) (m.y - m.R), null);
+                            continue;
+                        }
+                        g2.setColor(c);
+                        g2.fillOval((int) (m.x - m.R), (int) (m.y - m.R), 2 * m.R, 2 * m.R);
+                        g2.setColor(Color.BLACK);
+                        g2.drawOval((int) (m.x - m.R), (int) (m.y - m.R), 2 * m.R, 2 * m.R);
+                    }
+                }
+            }
+        }
+
+        static final Color WALL = new Color(150, 140, 125), POLYGON = new Color(95, 90, 80), BUMPER = new Color(235, 140, 40);
+        static final BasicStroke WALL_STROKE = new BasicStroke(4, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+        /** Filled polygons, free walls as thick lines and bumpers, culled to view. */
+        void drawObstacles(Graphics2D g2, Obstacles o, Rectangle2D view) {
+            g2.setColor(POLYGON);
+            for (float[] pts : o.outlines) {
+                Path2D.Float path = new Path2D.Float();
+                path.moveTo(pts[0], pts[1]);
+                for (int i = 2; i < pts.length; i += 2) path.lineTo(pts[i], pts[i + 1]);
+                path.closePath();
+                if (path.intersects(view)) g2.fill(path);
+            }
+            Stroke old = g2.getStroke();
+            g2.setStroke(WALL_STROKE);
+            for (int p = 0; p < o.size(); p++) {
+                if (o.type[p] == Obstacles.BUMPER) {
+                    double r = o.len[p];
+                    if (!view.intersects(o.ax[p] - r, o.ay[p] - r, 2 * r, 2 * r)) continue;
+                    g2.setColor(BUMPER);
+                    g2.fillOval((int) (o.ax[p] - r), (int) (o.ay[p] - r), (int) (2 * r), (int) (2 * r));
+                    g2.setColor(Color.WHITE);
+                    g2.drawOval((int) (o.ax[p] - r), (int) (o.ay[p] - r), (int) (2 * r), (int) (2 * r));
+                } else if (view.intersectsLine(o.ax[p], o.ay[p], o.bx[p], o.by[p])) {
+                    g2.setColor(WALL);
+                    g2.drawLine((int) o.ax[p], (int) o.ay[p], (int) o.bx[p], (int) o.by[p]);
+                }
+            }
+            g2.setStroke(old);
+        }
+
+        /** Scores, throwables and turn indicator, in screen coordinates. */
+        void drawHud(Graphics2D g2, Game game, int width, RenderGovernor.Tier q) {
+            // display score & throwables top-left; a row is re-laid out only when its numbers change
+            g2.setColor(Color.WHITE);
+            int y = 26;
+            for (int i = 0; i < game.players.size(); i++) {
+                Player p = game.players.get(i);
+                if (scoreRows.size() <= i) scoreRows.add(new TextRow());
+                TextRow row = scoreRows.get(i);
+                long key = (long) p.collected << 32 | (p.throwables & 0x7FFFFFFFL) << 1 | (q.fullHud ? 1 : 0);
+                if (row.stale(g2, p, key, HUD_FONT)) {
+                    row.set(g2, p, key, HUD_FONT, q.fullHud
+                            ? p.name + "  Score: " + p.collected + "  Throwables: " + p.throwables
+                            : p.name + " " + p.collected + "/" + p.throwables);
+                    hudRebuilds++;
+                }
+                row.draw(g2, 10, y);
+                y += 26;
+            }
+
+            // whose turn (top-right)
+            Player cp = game.getCurrentPlayer();
+            if (turnRow.stale(g2, cp, 0, HUD_FONT)) {
+                turnRow.set(g2, cp, 0, HUD_FONT, "Turn: " + cp.name);
+                hudRebuilds++;
+            }
+            turnRow.draw(g2, width - 160, 26);
+        }
+
+        /** Shot force label next to the drag point, in the current colour. */
+        void drawForce(Graphics2D g2, int pct, int x, int y) {
+            if (forceRow.stale(g2, null, pct, LABEL_FONT)) {
+                forceRow.set(g2, null, pct, LABEL_FONT, "Force: " + pct + "%");
+                hudRebuilds++;
+            }
+            forceRow.draw(g2, x, y);
+        }
+    }
+
+    /**
+     * One autoplayed table of the spectator view. Ticked on the spectator thread with the turn logic
+     * of GameServer (every seat shoots with the bot aim after its reaction time); painting reads it
+     * under the same lock. version changes only on ticks that moved something, so a tile whose
+     * version is unchanged is not redrawn.
+     */
+    static class SpectatorTable {
+        static final int RESTART_TICKS = 180;   // a finished game stays on the table this long
+        final int index;
+        Game game;
+        boolean turnShot;
+        int waitTicks;                          // until the current seat shoots, or until the restart
+        int games;
+        volatile long version;
+        // EDT only: the tile image and the version it shows
+        java.awt.image.BufferedImage tile;
+        long drawnVersion = -1;
+
+        SpectatorTable(int index) {
+            this.index = index;
+            newGame();
+        }
+
+        /** A new game; tables differ in mode, seats and table size. */
+        void newGame() {
+            Arena arena = index % 4 == 3 ? Arena.large() : Arena.standard();
+            long seed = System.nanoTime() + index;
+            game = index % 2 == 0
+                    ? new Game(GameMode.PVB, 1, 1 + index % 3, 5, 8, BotDifficulty.NORMAL, arena, seed)
+                    : new Game(GameMode.PVP, 2 + index % 3, 0, 5, 8, BotDifficulty.NORMAL, arena, seed);
+            games++;
+            turnShot = false;
+            waitTicks = reactionTicks();
+            version++;
+        }
+
+        private int reactionTicks() {
+            Player p = game.getCurrentPlayer();
+            int ms = p instanceof BotPlayer ? ((BotPlayer) p).reactionTime : 500 + game.rng.nextInt(600);
+            return Math.max(1, ms / GameScreen.TICK_MS);
+        }
+
+        synchronized void tick() {
+            if (waitTicks > 0 && --waitTicks == 0) {
+                if (game.allGone()) {
+                    newGame();
+                    return;
+                }
+                Player p = game.getCurrentPlayer();
+                BotPlayer.shoot(game, p, p instanceof BotPlayer ? ((BotPlayer) p).accuracy : 0.65);
+                turnShot = true;
+            }
+            if (!turnShot) return;              // waiting for a shot: nothing on the table moves
+            game.step(1.0);
+            version++;
+            if (game.moving()) return;
+            turnShot = false;
+            game.events.publish(EventBus.TURN_ENDED, null, null, game.getCurrentPlayer(), 0, 0);
+            if (game.allGone()) {
+                game.events.publish(EventBus.GAME_OVER, null, null, game.leader(), 0, 0);
+                game.events.dispatch();
+                waitTicks = RESTART_TICKS;
+                return;
+            }
+            game.events.dispatch();
+            game.nextTurn();
+            waitTicks = reactionTicks();
+        }
+
+        /** Draws the table fitted into a w x h area at the origin of g2; the caller holds the lock. */
+        void draw(Graphics2D g2, GameRenderer renderer, int w, int h, RenderGovernor.Tier q) {
+            Arena a = game.arena;
+            double s = Math.min(w / a.width, h / a.height);
+            AffineTransform at = g2.getTransform();
+            g2.translate((w - a.width * s) / 2, (h - a.height * s) / 2);
+            g2.scale(s, s);
+            renderer.drawBoard(g2, game, new Rectangle2D.Double(0, 0, a.width, a.height), q);
+            g2.setTransform(at);
+        }
+
+        /** One-line score summary for a tile caption. */
+        String caption() {
+            StringBuilder sb = new StringBuilder("T").append(index + 1);
+            for (Player p : game.players) sb.append("  ").append(p.name).append(' ').append(p.collected);
+            if (game.allGone()) sb.append("  FINAL");
+            return sb.toString();
+        }
+    }
+
+    // ---------- UI helpers ----------
+    JButton uiButton(String text, int w, int h) {
+        JButton b = new JButton(text);
+        b.setPreferredSize(new Dimension(w, h));
+        b.setBackground(Color.WHITE);
+        b.setForeground(Color.BLACK);
+        b.setFont(new Font("Arial", Font.BOLD, 22));
+        b.setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY, 3));
+        return b;
+    }
+    JLabel uiTitle(String text) {
+        JLabel l = new JLabel(text, SwingConstants.CENTER);
+        l.setFont(new Font("Arial", Font.BOLD, 44));
+        l.setForeground(Color.WHITE);
+        return l;
+    }
+
+    // ---------- Screens ----------
+
+    class MenuScreen extends JPanel {
+
+        private Image bg;
+        private Image how1;
+        JFrame[] howTo;
+
+        MenuScreen() {
+            bg = icon("/images/Background.png").getImage();
+            setLayout(null);
+
+            JLabel title = uiTitle("HOLEN");
+            title.setFont(new Font("Arial", Font.BOLD, 72));
+            title.setForeground(Color.BLACK);
+            title.setBounds(0, 20, 1024, 100);
+            add(title);
+
+            int btnW = 420, btnH = 60;
+            int centerX = (1024 - btnW) / 2;
+            int startY = 160;
+            int spacing = 86;
+
+            ImageIcon PVPIcon = icon("/images/PlayerVSPlayers.png");
+            JButton pvp = new JButton(PVPIcon);
+            pvp.setBounds(362, 150, 300, 60);
+            pvp.addActionListener(e -> { mode = GameMode.PVP; setupScreen.updateVisibleOptions(); card.show(cards, "setup"); });
+            add(pvp);
+
+            ImageIcon PVBIcon = icon("/images/PlayersVSBot.png");
+            JButton pvb = new JButton(PVBIcon);
+            pvb.setBounds(362, 240, 300, 60);
+            pvb.addActionListener(e -> { mode = GameMode.PVB; setupScreen.updateVisibleOptions(); card.show(cards, "difficulty"); });
+            add(pvb);
+
+//            JButton how = uiButton("HOW TO PLAY", btnW, btnH);
+//            how.setBounds(centerX, startY + spacing * 2, btnW, btnH);
+//            how.addActionListener(e -> {
+//                String msg = "HOW TO PLAY:\n\n" +
+//                        "1. Choose mode (PvP or PvB) and setup.\n" +
+//                        "2. Each player has throwable marbles shown below the field.\n" +
+//                        "3. Click a throw marble, drag away to set force, release to shoot.\n" +
+//                        "4. Knock neutral marbles out of the circle to score.\n" +
+//                        "5. Throwables decrease when a marble is shot; replacements appear while supply remains.\n\n" +
+//                        "Tip: drag longer for more force. Force is shown as % while dragging.\n" +
+//                        "A faint projected path is shown while dragging.";
+//                String html = "<html><div style='font-size:14px; width:480px;'>" + msg.replace("\n", "<br>") + "</div></html>";
+//                JOptionPane.showMessageDialog(this, html, "How To Play", JOptionPane.PLAIN_MESSAGE);
+//            });
+//
+//           setLayout(null);
+            ImageIcon howIcon = icon("/images/How.png");
+            JButton how = new JButton(howIcon);
+            how.setBounds(362, 340, 300, 60);
+            how.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    // built once; closing only hides them, so later clicks show the same two windows
+                    if (howTo == null) howTo = new JFrame[] { howToFrame("/images/HowToPlay2.png"), howToFrame("/images/HowToPlay1.png") };
+                    for (JFrame frame : howTo) {
+                        frame.setVisible(true);
+                        frame.toFront();
+                    }
+                }
+            });
+
+            add(how);
+
+            JButton exit = uiButton("EXIT", btnW, btnH);
+            exit.setBounds(centerX, startY + spacing * 3, btnW, btnH);
+            exit.addActionListener(e -> System.exit(0));
+            add(exit);
+
+            JButton resume = uiButton("RESUME GAME", btnW, btnH);
+            resume.setBounds(centerX, startY + spacing * 4, btnW, btnH);
+            resume.addActionListener(e -> {
+                try {
+                    JfrEvents.AssetLoad jfr = new JfrEvents.AssetLoad();
+                    jfr.begin();
+                    Game saved = autosaver.load();
+                    if (jfr.shouldCommit()) {
+                        jfr.kind = "autosave";
+                        jfr.path = autosaver.file.toString();
+                        jfr.entries = saved.marbles.size();
+                        jfr.commit();
+                    }
+                    gameScreen.begin(saved);
+                    card.show(cards, "game");
+                } catch (IOException | RuntimeException ex) {
+                    JOptionPane.showMessageDialog(this, "Could not resume the saved game:\n" + ex, "Resume", JOptionPane.ERROR_MESSAGE);
+                    resume.setVisible(false);
+                }
+            });
+            add(resume);
+
+            JButton spectate = uiButton("SPECTATE TABLES", btnW, btnH);
+            spectate.setBounds(centerX, startY + spacing * 5, btnW, btnH);
+            spectate.addActionListener(e -> card.show(cards, "spectate"));
+            add(spectate);
+            // only offer RESUME while an autosave is on disk
+            addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentShown(ComponentEvent e) { resume.setVisible(autosaver.exists()); }
+            });
+            resume.setVisible(autosaver.exists());
+        }
+
+        private JFrame howToFrame(String image) {
+            JFrame frame = new JFrame("How to Play");
+            frame.add(new JLabel(icon(image)));
+            frame.pack();
+            frame.setBounds(50, 20, 1200, 1100);
+            return frame;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            g.drawImage(bg, 0, 0, getWidth(), getHeight(), this);
+        }
+    }
+
+    class DifficultyScreen extends JPanel {
+        private Image setImg;
+        DifficultyScreen() {
+            setImg = icon("/images/SetDifficulty.png").getImage();
+            setLayout(null);
+            JLabel title = uiTitle("Select Bot Difficulty");
+            title.setBounds(0, 40, 1024, 60);
+            add(title);
+//
+//            JButton easy = uiButton("Easy", 300, 60);
+//            easy.setBounds(362, 150, 300, 60);
+//            easy.addActionListener(e -> { difficulty = BotDifficulty.EASY; card.show(cards, "setup"); });
+//            add(easy);
+
+            ImageIcon playIcon = icon("/images/Easy.png");
+            JButton easy = new JButton(playIcon);
+            easy.setBounds(362, 150, 300, 60);
+            easy.setBorderPainted(false);
+            easy.setContentAreaFilled(false);  // removes grey button background
+            easy.setFocusPainted(false);       // removes focus outline
+            easy.addActionListener(e -> {
+                difficulty = BotDifficulty.EASY;
+                card.show(cards, "setup");
+            });
+            add(easy);
+
+
+            ImageIcon mediumIcon = icon("/images/Normal.png");
+            JButton norm = new JButton(mediumIcon);
+            norm.setBounds(362, 240, 300, 60);
+            norm.addActionListener(e -> {
+                difficulty = BotDifficulty.NORMAL;
+                card.show(cards, "setup");
+            });
+            add(norm);
+
+            ImageIcon hardIcon = icon("/images/Hard.png");
+            JButton hard = new JButton(hardIcon);
+            hard.setBounds(362, 330, 300, 60);
+            hard.addActionListener(e -> { difficulty = BotDifficulty.HARD; card.show(cards, "setup"); });
+            add(hard);
+
+            ImageIcon backIcon = icon("/images/Back.png");
+            JButton back = new JButton(backIcon);
+            back.setBounds(412, 430, 200, 50);
+            back.addActionListener(e -> card.show(cards, "menu"));
+            easy.setBorderPainted(false);
+            easy.setContentAreaFilled(true);
+            easy.setFocusPainted(true);
+            add(back);
+        }
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            g.drawImage(setImg, 0, 0, getWidth(), getHeight(), this);
+        }
+    }
+
+    class SetupScreen extends JPanel {
+        JLabel lThrow, lInside, lNumPlayers, lNumBots;
+        JButton pMinus, pPlus, bMinus, bPlus, turboBtn;
+
+        private Image GameSet;
+        SetupScreen() {
+            GameSet = icon("/images/GameSetUp.png").getImage();
+            setLayout(null);
+
+            JLabel title = uiTitle("Game Setup");
+            title.setBounds(0, 20, 1024, 60);
+            title.setForeground(Color.BLACK);
+            add(title);
+
+            lThrow = new JLabel("Throwables: " + throwablePerPlayer, SwingConstants.CENTER);
+            lThrow.setBounds(200, 110, 560, 30);
+            lThrow.setForeground(Color.BLACK);
+            add(lThrow);
+
+            JButton tMinus = uiButton("-", 70, 40);
+            tMinus.setBounds(200, 150, 70, 40);
+            tMinus.addActionListener(e -> { if (throwablePerPlayer > 1) throwablePerPlayer--; lThrow.setText("Throwables: " + throwablePerPlayer); });
+            add(tMinus);
+
+            JButton tPlus = uiButton("+", 70, 40);
+            tPlus.setBounds(690, 150, 70, 40);
+            tPlus.addActionListener(e -> { throwablePerPlayer++; lThrow.setText("Throwables: " + throwablePerPlayer); });
+            add(tPlus);
+
+            lInside = new JLabel("Marbles in circle: " + marblesInCircle, SwingConstants.CENTER);
+            lInside.setBounds(200, 210, 560, 30);
+            lInside.setForeground(Color.BLACK);
+            add(lInside);
+
+            JButton iMinus = uiButton("-", 70, 40);
+            iMinus.setBounds(200, 250, 70, 40);
+            iMinus.addActionListener(e -> { if (marblesInCircle > 0) marblesInCircle--; lInside.setText("Marbles in circle: " + marblesInCircle); });
+            add(iMinus);
+
+            JButton iPlus = uiButton("+", 70, 40);
+            iPlus.setBounds(690, 250, 70, 40);
+            iPlus.addActionListener(e -> { marblesInCircle++; lInside.setText("Marbles in circle: " + marblesInCircle); });
+            add(iPlus);
+
+            // number of players (PvP)
+            lNumPlayers = new JLabel("Number of players: " + numPlayers, SwingConstants.CENTER);
+            lNumPlayers.setBounds(200, 310, 560, 30);
+            lNumPlayers.setForeground(Color.BLACK);
+            add(lNumPlayers);
+
+            pMinus = uiButton("-", 70, 40);
+            pMinus.setBounds(200, 350, 70, 40);
+            pMinus.addActionListener(e -> { if (numPlayers > 2) numPlayers--; lNumPlayers.setText("Number of players: " + numPlayers); });
+            add(pMinus);
+
+            pPlus = uiButton("+", 70, 40);
+            pPlus.setBounds(690, 350, 70, 40);
+            pPlus.addActionListener(e -> { if (numPlayers < 6) numPlayers++; lNumPlayers.setText("Number of players: " + numPlayers); });
+            add(pPlus);
+
+            // number of bots (PvB) - same placement as number players (Option A)
+            lNumBots = new JLabel("Number of bots: " + numBots, SwingConstants.CENTER);
+            lNumBots.setBounds(200, 310, 560, 30);
+            lNumBots.setForeground(Color.WHITE);
+            add(lNumBots);
+
+            bMinus = uiButton("-", 70, 40);
+            bMinus.setBounds(200, 350, 70, 40);
+            bMinus.addActionListener(e -> { if (numBots > 1) numBots--; lNumBots.setText("Number of bots: " + numBots); });
+            add(bMinus);
+
+            bPlus = uiButton("+", 70, 40);
+            bPlus.setBounds(690, 350, 70, 40);
+            bPlus.addActionListener(e -> { if (numBots < 6) numBots++; lNumBots.setText("Number of bots: " + numBots); });
+            add(bPlus);
+
+            JButton arenaBtn = uiButton("ARENA: STANDARD", 270, 40);
+            arenaBtn.setBounds(200, 405, 270, 40);
+            arenaBtn.addActionListener(e -> {
+                // bundled arenas, then any ~/.holen/arenas/*.arena, rescanned on each click
+                List<String> choices = ArenaFile.choices();
+                arenaChoice = choices.get((choices.indexOf(arenaChoice) + 1) % choices.size());
+                String label = arenaChoice.endsWith(".arena") ? java.nio.file.Paths.get(arenaChoice).getFileName().toString().replace(".arena", "") : arenaChoice;
+                arenaBtn.setText("ARENA: " + label.toUpperCase(Locale.ROOT));
+            });
+            add(arenaBtn);
+
+            // bot turbo (PvB only)
+            turboBtn = uiButton("TURBO: " + turbo, 270, 40);
+            turboBtn.setBounds(490, 405, 270, 40);
+            turboBtn.addActionListener(e -> {
+                turbo = BotTurbo.values()[(turbo.ordinal() + 1) % BotTurbo.values().length];
+                turboBtn.setText("TURBO: " + turbo);
+            });
+            add(turboBtn);
+
+            // start & back (moved higher)
+            JButton start = uiButton("START GAME", 320, 56);
+            start.setBounds(352, 460, 320, 56);
+            start.addActionListener(e -> {
+                Game g;
+                Arena arena = ArenaFile.load(arenaChoice);
+                if (mode == GameMode.PVB) g = new Game(mode, 1, numBots, throwablePerPlayer, marblesInCircle, difficulty, arena);
+                else g = new Game(mode, numPlayers, 0, throwablePerPlayer, marblesInCircle, difficulty, arena);
+                gameScreen.begin(g);
+                card.show(cards, "game");
+            });
+            add(start);
+
+            JButton back = uiButton("BACK", 200, 50);
+            back.setBounds(412, 540, 200, 50);
+            back.addActionListener(e -> card.show(cards, "menu"));
+            add(back);
+
+            updateVisibleOptions();
+        }
+
+        void updateVisibleOptions() {
+            boolean pvpVisible = mode == GameMode.PVP;
+            lNumPlayers.setVisible(pvpVisible);
+            pMinus.setVisible(pvpVisible);
+            pPlus.setVisible(pvpVisible);
+
+            boolean pvbVisible = mode == GameMode.PVB;
+            lNumBots.setVisible(pvbVisible);
+            bMinus.setVisible(pvbVisible);
+            bPlus.setVisible(pvbVisible);
+            turboBtn.setVisible(pvbVisible);
+        }
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            g.drawImage(GameSet, 0, 0, getWidth(), getHeight(), this);
+        }
+    }
+
+    class ResultScreen extends JPanel {
+        JLabel title = new JLabel("", SwingConstants.CENTER);
+        JLabel scores = new JLabel("", SwingConstants.CENTER);
+        JButton again, menu;
+
+        ResultScreen() {
+            setBackground(new Color(25, 25, 25));
+            setLayout(null);
+            title.setFont(new Font("Arial", Font.BOLD, 40));
+            title.setForeground(Color.WHITE);
+            title.setBounds(0, 40, 1024, 60);
+            add(title);
+            scores.setFont(new Font("Arial", Font.PLAIN, 24));
+            scores.setForeground(Color.WHITE);
+            scores.setBounds(0, 105, 1024, 310);
+            add(scores);
+            again = uiButton("PLAY AGAIN", 300, 56);
+            again.setBounds(362, 420, 300, 56);
+            again.addActionListener(e -> card.show(cards, "setup"));
+            add(again);
+            menu = uiButton("MAIN MENU", 300, 56);
+            menu.setBounds(362, 500, 300, 56);
+            menu.addActionListener(e -> card.show(cards, "menu"));
+            add(menu);
+        }
+
+        void show(Game game, long durationMs) {
+            List<Player> players = game.players;
+            Player winner = game.leader();
+            title.setText(winner.name + " WINS!");
+            StringBuilder sb = new StringBuilder("<html><center>Scores<br>");
+            for (Player p : players) sb.append(p.name).append(": ").append(p.collected).append("<br>");
+            MatchLog history = matchLog();
+            if (history != null) {
+                try {
+                    history.append(game, durationMs);
+                    sb.append("<span style='font-size:13px'><br>Leaderboard (").append(history.size()).append(" matches)<br>");
+                    int rank = 1;
+                    for (MatchLog.PlayerStats s : history.top(5)) {
+                        sb.append(rank++).append(". ").append(s.name).append(" - ").append(s.wins).append(" wins, ")
+                          .append(s.totalScore).append(" pts<br>");
+                    }
+                    sb.append("</span>");
+                } catch (IOException e) {
+                    System.err.println("could not record match: " + e);
+                }
+            }
+            sb.append("</center></html>");
+            scores.setText(sb.toString());
+        }
+    }
+
+    // ---------- Spectator (multi-table) screen ----------
+
+    /**
+     * Tournament view: a grid of autoplayed tables, one of them focused at a larger size.
+     *
+     * All tables are simulated on one "spectator.sim" thread at the game's tick rate; the EDT only
+     * paints. The focused table is drawn in full every frame (60 Hz). The other tables are tiles
+     * rendered at reduced resolution into their own images and blitted: each frame re-renders the
+     * stale tiles that are on screen, round-robin, until the tile budget is spent, so with many busy
+     * tables each one refreshes at a lower, staggered rate while the focused table keeps its frame
+     * rate. Tiles scrolled out of view or unchanged since their last render are not redrawn.
+     *
+     * Click a tile to focus it, wheel to scroll, Esc or BACK to leave. -Dholen.spectate.tables (16)
+     * sets the table count, -Dholen.spectate.tileBudgetMicros (4000) the tile time per frame.
+     */
+    class SpectatorScreen extends JPanel {
+        private static final long serialVersionUID = 1L;
+
+        static final int CELL_W = 170, CELL_H = 115, COLS = 6, FOCUS_CELLS = 3, PAD = 3;
+        final int tableCount = Math.max(2, Integer.getInteger("holen.spectate.tables", 16));
+        final long tileBudgetNanos = Integer.getInteger("holen.spectate.tileBudgetMicros", 4000) * 1000L;
+        final List<SpectatorTable> tables = new ArrayList<>();
+        final GameRenderer focusRenderer = new GameRenderer(), tileRenderer = new GameRenderer();
+        final javax.swing.Timer frame = new javax.swing.Timer(16, e -> repaint());
+        java.util.concurrent.ScheduledExecutorService sim;
+        volatile long simNanos;                 // last tick of all tables
+        int focus, scrollY, nextTile;
+        long tileNanos = 300_000;               // smoothed cost of one tile render
+        // per-second counters for the status line
+        long secondStart, frames, tilesDrawn, skippedOffscreen, skippedUnchanged;
+        String status = "";
+
+        SpectatorScreen() {
+            setLayout(null);
+            setBackground(new Color(20, 20, 20));
+            JButton back = uiButton("BACK", 140, 40);
+            back.setBounds(870, 636, 140, 40);
+            back.addActionListener(e -> card.show(cards, "menu"));
+            add(back);
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    int t = tableAt(e.getX(), e.getY() + scrollY);
+                    if (t < 0 || t == focus) return;
+                    focus = t;
+                    scrollY = 0;
+                    for (SpectatorTable s : tables) s.drawnVersion = -1;   // tiles move to new slots
+                }
+            });
+            addMouseWheelListener(e -> scrollY = Math.max(0, Math.min(maxScroll(), scrollY + e.getWheelRotation() * CELL_H / 2)));
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("ESCAPE"), "back");
+            getActionMap().put("back", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) { if (isShowing()) card.show(cards, "menu"); }
+            });
+            // simulate and repaint only while the screen is showing
+            addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentShown(ComponentEvent e) { start(); }
+                @Override
+                public void componentHidden(ComponentEvent e) { stop(); }
+            });
+        }
+
+        void start() {
+            if (tables.isEmpty()) for (int i = 0; i < tableCount; i++) tables.add(new SpectatorTable(i));
+            sim = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "spectator.sim");
+                t.setDaemon(true);
+                return t;
+            });
+            sim.scheduleAtFixedRate(this::simulate, 0, GameScreen.TICK_MS, java.util.concurrent.TimeUnit.MILLISECONDS);
+            frame.start();
+        }
+
+        void stop() {
+            frame.stop();
+            if (sim != null) sim.shutdownNow();
+            sim = null;
+        }
+
+        /** Spectator thread: one tick of every table. */
+        void simulate() {
+            long t0 = System.nanoTime();
+            for (SpectatorTable t : tables) {
+                try {
+                    t.tick();
+                } catch (RuntimeException e) {
+                    System.err.println("spectator table " + (t.index + 1) + " restarted: " + e);
+                    synchronized (t) { t.newGame(); }
+                }
+            }
+            simNanos = System.nanoTime() - t0;
+        }
+
+        /** Cell rectangle (page coordinates) of the slot-th tile; tiles flow around the focused table. */
+        Rectangle tileRect(int slot) {
+            int besideFocus = FOCUS_CELLS * (COLS - FOCUS_CELLS);
+            int row, col;
+            if (slot < besideFocus) {
+                row = slot / (COLS - FOCUS_CELLS);
+                col = FOCUS_CELLS + slot % (COLS - FOCUS_CELLS);
+            } else {
+                row = FOCUS_CELLS + (slot - besideFocus) / COLS;
+                col = (slot - besideFocus) % COLS;
+            }
+            return new Rectangle(col * CELL_W + PAD, row * CELL_H + PAD, CELL_W - 2 * PAD, CELL_H - 2 * PAD);
+        }
+
+        Rectangle focusRect() { return new Rectangle(PAD, PAD, FOCUS_CELLS * CELL_W - 2 * PAD, FOCUS_CELLS * CELL_H - 2 * PAD); }
+
+        int slotOf(int table) { return table < focus ? table : table - 1; }
+
+        int tableAt(int x, int y) {
+            for (int i = 0; i < tables.size(); i++) if (i != focus && tileRect(slotOf(i)).contains(x, y)) return i;
+            return -1;
+        }
+
+        int maxScroll() {
+            Rectangle last = tileRect(tables.size() - 2);
+            return Math.max(0, last.y + last.height + 60 - getHeight());
+        }
+
+        @Override
+        public void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (tables.isEmpty()) return;
+            long start = System.nanoTime();
+            Graphics2D g2 = (Graphics2D) g;
+            AffineTransform screen = g2.getTransform();
+            g2.translate(0, -scrollY);
+            Rectangle view = new Rectangle(0, scrollY, getWidth(), getHeight());
+
+            // focused table: every frame, full detail
+            Rectangle fr = focusRect();
+            if (fr.intersects(view)) {
+                SpectatorTable f = tables.get(focus);
+                Shape clip = g2.getClip();
+                g2.clip(fr);
+                g2.translate(fr.x, fr.y);
+                synchronized (f) {
+                    f.draw(g2, focusRenderer, fr.width, fr.height, RenderGovernor.Tier.HIGH);
+                    focusRenderer.drawHud(g2, f.game, fr.width, RenderGovernor.Tier.MEDIUM);
+                }
+                g2.translate(-fr.x, -fr.y);
+                g2.setClip(clip);
+            }
+
+            // tiles: refresh stale on-screen tiles round-robin within the budget, then blit them all
+            long deadline = start + tileBudgetNanos;
+            int n = tables.size();
+            for (int k = 0; k < n; k++) {
+                int i = (nextTile + k) % n;
+                if (i == focus) continue;
+                SpectatorTable t = tables.get(i);
+                Rectangle r = tileRect(slotOf(i));
+                if (!r.intersects(view)) { skippedOffscreen++; continue; }
+                if (t.drawnVersion == t.version && t.tile != null) { skippedUnchanged++; continue; }
+                long now = System.nanoTime();
+                if (now + tileNanos > deadline) {
+                    nextTile = i;               // the next frame starts with the tile this one could not afford
+                    break;
+                }
+                renderTile(t, r.width, r.height);
+                tileNanos += (System.nanoTime() - now - tileNanos) / 8;
+                tilesDrawn++;
+            }
+            for (int i = 0; i < n; i++) {
+                SpectatorTable t = tables.get(i);
+                Rectangle r = tileRect(slotOf(i));
+                if (i == focus || t.tile == null || !r.intersects(view)) continue;
+                g2.drawImage(t.tile, r.x, r.y, null);
+            }
+            g2.setTransform(screen);
+
+            frames++;
+            long now = System.nanoTime();
+            if (now - secondStart >= 1_000_000_000L) {
+                status = String.format("%d tables  focus %d fps  tiles redrawn %d/s  skipped off-screen %d/s, unchanged %d/s  tile %.2f ms  sim %.2f ms/tick",
+                        n, frames, tilesDrawn, skippedOffscreen, skippedUnchanged, tileNanos / 1e6, simNanos / 1e6);
+                frames = tilesDrawn = skippedOffscreen = skippedUnchanged = 0;
+                secondStart = now;
+            }
+            g2.setColor(Color.LIGHT_GRAY);
+            g2.setFont(GameRenderer.PERF_FONT);
+            g2.drawString(status, 10, getHeight() - 12);
+        }
+
+        /** Re-renders a tile at reduced resolution: LOW quality, no HUD, a one-line caption. */
+        void renderTile(SpectatorTable t, int w, int h) {
+            if (t.tile == null || t.tile.getWidth() != w || t.tile.getHeight() != h) {
+                GraphicsConfiguration gc = getGraphicsConfiguration();
+                t.tile = gc != null ? gc.createCompatibleImage(w, h) : new java.awt.image.BufferedImage(w, h, java.awt.image.BufferedImage.TYPE_INT_RGB);
+            }
+            Graphics2D g = t.tile.createGraphics();
+            try {
+                g.setColor(new Color(35, 35, 35));
+                g.fillRect(0, 0, w, h);
+                String caption;
+                synchronized (t) {
+                    t.draw(g, tileRenderer, w, h - 14, RenderGovernor.Tier.LOW);
+                    caption = t.caption();
+                    t.drawnVersion = t.version;
+                }
+                g.setColor(Color.WHITE);
+                g.setFont(GameRenderer.NOTE_FONT);
+                g.drawString(caption, 4, h - 3);
+            } finally {
+                g.dispose();
+            }
+        }
+    }
+
+    // ---------- Game (Play) screen ----------
+    class GameScreen extends JPanel implements MouseListener, MouseMotionListener {
+        Game game;
+        javax.swing.Timer loop;
+        static final int TICK_MS = 17;
+        static final int FAST_STEPS = 16;           // physics ticks per frame for BotTurbo.FAST
+        static final int INSTANT_MAX_STEPS = 20000; // safety cap for BotTurbo.INSTANT
+        int botWaitTicks;   // ticks until the current bot shoots; 0 = no bot shot pending
+        BotSearch.Pending botPlan;  // HARD bot's search, run off the EDT during the reaction delay
+        Marble selected;
+        Point dragStart, dragNow;     // arena coordinates
+        Point panLast;                // screen coordinates of an active right-drag pan
+        boolean turnShot = false;
+        long startedAt;               // wall-clock start of the current game, for match duration
+        final double MAX_FORCE = 24.0; // longer drag required
+        Camera camera = new Camera();
+        RenderGovernor governor = new RenderGovernor(8.0); // half of a 60 Hz frame for painting
+        GameRenderer renderer = new GameRenderer();
+        boolean showPerf = false;
+        String lastTierChange = "";
+        InputPipeline input = new InputPipeline();
+        // floating "+1" popups where marbles leave the circle, fed by CIRCLE_EXIT events
+        static final int POPUPS = 32, POPUP_TICKS = 45;
+        final double[] popX = new double[POPUPS], popY = new double[POPUPS];
+        final Color[] popColor = new Color[POPUPS];
+        final int[] popTtl = new int[POPUPS];
+        int popNext;
+        final EventBus.Listener effects = (type, a, b, p, x, y) -> {
+            if (type != EventBus.CIRCLE_EXIT || p == null) return;
+            popX[popNext] = x; popY[popNext] = y; popColor[popNext] = p.color; popTtl[popNext] = POPUP_TICKS;
+            popNext = (popNext + 1) % POPUPS;
+        };
+        // -Dholen.input.immediate=false restores the old tick-quantized input, for latency comparisons
+        final boolean immediateInput = Boolean.parseBoolean(System.getProperty("holen.input.immediate", "true"));
+        long lastTickNanos;
+        static final int KEYFRAME_TICKS = 10;   // rewind keyframe spacing while marbles move
+        RewindBuffer rewind = new RewindBuffer(Integer.getInteger("holen.rewindKB", 4096) * 1024L);
+        int ticksSinceKeyframe;
+        int scrubIndex = -1;                    // logical rewind index being shown, -1 = live
+        Replay replay;                          // shots since begin/restore; written on game over
+        final StateFeed.Writer feed = StateFeed.fromSystemProperty();   // -Dholen.feed, null = off
+        long frames;
+        final BotSearch botSearch = new BotSearch(shotCache);
+        final TileSolver tiles = TileSolver.fromSystemProperty();   // shared by every game on this screen (null = serial)
+        // the loop parks when there is nothing to simulate or animate; -Dholen.loop.alwaysOn=true keeps it running
+        final boolean loopAlwaysOn = Boolean.getBoolean("holen.loop.alwaysOn");
+        long loopTicks, loopParks;
+        // P toggles the predict preview: the whole shot simulated with collisions, refined each tick
+        boolean predict = false;
+        final ShotPreview preview = new ShotPreview();
+        final long previewBudgetNanos = Integer.getInteger("holen.previewBudgetMicros", 3000) * 1000L;
+        JfrEvents.Frame frameEvent;         // opened by updateGame, committed by the paint that shows it
+        JfrEvents.Turn turnEvent;
+        int turnCollectedAtStart;
+        long turnTicksAtStart;
+        // the shot in flight this turn, logged to the shot analytics when the turn ends
+        boolean showShots = false;
+        Player shooter;
+        double shotX, shotY, shotAngle, shotForce;
+        int shotKnocked;
+        final EventBus.Listener shotTracker = (type, a, b, p, x, y) -> {
+            if (shooter == null) return;
+            if (type == EventBus.CIRCLE_EXIT && p == shooter) shotKnocked++;
+            else if (type == EventBus.TURN_ENDED) recordShot();
+        };
+
+        GameScreen() {
+            setBackground(new Color(20, 20, 20));
+            addMouseListener(this);
+            addMouseMotionListener(this);
+            addMouseWheelListener(e -> {
+                camera.zoomAt(e.getX(), e.getY(), Math.pow(1.1, -e.getPreciseWheelRotation()));
+                repaint();
+            });
+            bindKey("LEFT", () -> camera.pan(40, 0));
+            bindKey("RIGHT", () -> camera.pan(-40, 0));
+            bindKey("UP", () -> camera.pan(0, 40));
+            bindKey("DOWN", () -> camera.pan(0, -40));
+            bindKey("HOME", () -> { if (game != null) camera.reset(game.arena, getWidth(), getHeight()); });
+            bindKey("F3", () -> showPerf = !showPerf);
+            bindKey("H", () -> showShots = !showShots);
+            bindKey("P", () -> { predict = !predict; preview.clear(); });
+            bindKey("U", this::undoTurn);
+            bindKey("OPEN_BRACKET", () -> scrub(-1));
+            bindKey("CLOSE_BRACKET", () -> scrub(+1));
+            bindKey("ENTER", this::resumeFromScrub);
+            bindKey("ESCAPE", () -> { if (scrubIndex >= 0) { scrubIndex = rewind.size() - 1; resumeFromScrub(); } });
+            // shown in the F3 overlay
+            governor.listeners.add((from, to, avgMs, budgetMs) ->
+                    lastTierChange = String.format("%s -> %s (avg paint %.2f ms, budget %.1f ms)", from, to, avgMs, budgetMs));
+            loop = new javax.swing.Timer(TICK_MS, e -> updateGame());
+            loop.setInitialDelay(0); // a woken loop ticks at once
+        }
+
+        void bindKey(String key, Runnable action) {
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key), key);
+            getActionMap().put(key, new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) { action.run(); repaint(); }
+            });
+        }
+
+        void begin(Game g) {
+            if (game != null) {
+                game.events.listeners.remove(effects);
+                game.events.listeners.remove(shotTracker);
+            }
+            this.game = g;
+            g.events.listeners.add(effects);
+            g.events.listeners.add(shotTracker);
+            shooter = null;
+            Arrays.fill(popTtl, 0);
+            selected = null; dragStart = dragNow = null; panLast = null; turnShot = false;
+            preview.clear();
+            input.reset();
+            lastTickNanos = 0;
+            rewind.reset(g);
+            rewind.push(g, true, false);
+            ticksSinceKeyframe = 0;
+            scrubIndex = -1;
+            replay = Replay.start(g);
+            // panel may not be laid out yet on the first game; fall back to the window's content size
+            int w = getWidth() > 0 ? getWidth() : cards.getWidth(), h = getHeight() > 0 ? getHeight() : cards.getHeight();
+            camera.reset(g.arena, w, h);
+            if (g.solver == null) g.solver = tiles;
+            botWaitTicks = 0;
+            autosaver.save(game);
+            startedAt = System.currentTimeMillis();
+            openTurnEvent();
+            loop.start();
+            // if starting player is bot, schedule bot
+            if (game.getCurrentPlayer() instanceof BotPlayer) scheduleBot();
+        }
+
+        void stopAllTimers() { loop.stop(); botWaitTicks = 0; }
+
+        /** Helper: returns true if any marble in the current game is moving. */
+        private boolean moving() {
+            return game != null && game.moving();
+        }
+
+        boolean botTurn() { return game.getCurrentPlayer() instanceof BotPlayer; }
+
+        /**
+         * One displayed frame. Normally one physics tick; during bot turns with turbo on, FAST runs
+         * FAST_STEPS ticks and INSTANT runs the whole bot turn, then paints once. Bot reaction time is
+         * counted in ticks, so the tick sequence (and therefore the outcome) is the same in every mode.
+         * A HARD bot's shot waits for its search without ticking: the loop parks and the search's
+         * completion wakes it, so how long the search takes never changes which tick the shot fires on.
+         */
+        void updateGame() {
+            if (game == null) return;
+            if (scrubIndex >= 0) { repaint(); park(); return; } // paused on a rewind snapshot; keys repaint
+            if (awaitingSearch()) { park(); return; }
+            JfrEvents.Frame jfr = JfrEvents.FRAME.isEnabled() ? new JfrEvents.Frame() : null;
+            if (jfr != null) jfr.begin();
+            long t0 = System.nanoTime(), ticks0 = loopTicks;
+
+            if (turbo == BotTurbo.OFF || !botTurn()) {
+                if (!tick()) return;
+            } else {
+                int max = turbo == BotTurbo.FAST ? FAST_STEPS : INSTANT_MAX_STEPS;
+                Player bot = game.getCurrentPlayer();
+                for (int i = 0; i < max && game.getCurrentPlayer() == bot && !awaitingSearch(); i++) {
+                    if (!tick()) return;
+                }
+            }
+            refinePreview();
+            if (feed != null) feed.publish(game, ++frames, false);
+            if (jfr != null) {
+                if (frameEvent != null) frameEvent.commit(); // its paint was coalesced into this frame's
+                jfr.physicsNanos = System.nanoTime() - t0;
+                jfr.ticks = (int) (loopTicks - ticks0);
+                jfr.marbles = game.marbles.size();
+                jfr.moving = game.moving();
+                frameEvent = jfr;
+            }
+            repaint();
+            if (!needsTick() || awaitingSearch()) park();
+        }
+
+        /** True when the bot's shot is due on the next tick but its search is still running. */
+        boolean awaitingSearch() { return botWaitTicks == 1 && botPlan != null && !botPlan.done(); }
+
+        /** Aims the predict preview at the current drag and advances it within its per-tick budget. */
+        void refinePreview() {
+            if (!predict || selected == null || dragStart == null || dragNow == null) return;
+            double dx = dragStart.x - dragNow.x, dy = dragStart.y - dragNow.y;
+            double speed = Math.min(MAX_FORCE, Math.hypot(dx, dy) / 8.0), angle = Math.atan2(dy, dx);
+            preview.aim(game, selected, speed * Math.cos(angle), speed * Math.sin(angle));
+            preview.advance(previewBudgetNanos);
+        }
+
+        /** True while the loop has work: motion, a shot queued or in flight, a drag, a bot waiting or popups fading. */
+        boolean needsTick() {
+            if (loopAlwaysOn) return true;
+            if (game.moving() || turnShot || input.hasShot() || selected != null || botWaitTicks > 0) return true;
+            for (int t : popTtl) if (t > 0) return true;
+            return false;
+        }
+
+        /** Stops the loop until {@link #wake()}; the next tick then covers one nominal tick span. */
+        void park() {
+            if (loopAlwaysOn || !loop.isRunning()) return;
+            loop.stop();
+            lastTickNanos = 0;
+            loopParks++;
+        }
+
+        /** Restarts a parked loop on input or a scheduled bot shot. */
+        void wake() {
+            if (game != null && scrubIndex < 0 && !loop.isRunning()) loop.start();
+        }
+
+        /** Advances one physics tick and runs turn logic. Returns false once the game is over. */
+        boolean tick() {
+            loopTicks++;
+            if (botWaitTicks > 0 && --botWaitTicks == 0) {
+                Marble shot = performBotShot();   // updateGame only gets here once a HARD search is done
+                if (shot != null) shotFired(shot, 0);
+                turnShot = true;
+            }
+
+            // one tick covers the wall-clock span since the previous tick; queued shots are applied at
+            // the fraction of that span where the button was released. Such a tick is run as two (or more)
+            // partial game.step calls, so collisions, out-of-bounds and scoring are evaluated once per
+            // part, i.e. more than once in that tick
+            long now = System.nanoTime();
+            long prev = lastTickNanos == 0 ? now - TICK_MS * 1_000_000L : lastTickNanos;
+            lastTickNanos = now;
+            double done = 0;
+            while (input.hasShot()) {
+                double at = immediateInput ? Math.max(done, Math.min(1.0, (input.shotTime() - prev) / (double) (now - prev))) : 0;
+                if (at > done) game.step(at - done);
+                done = at;
+                shotFired(input.applyShot(), at);
+            }
+            if (done < 1.0) game.step(1.0 - done);
+            for (int i = 0; i < POPUPS; i++) if (popTtl[i] > 0) popTtl[i]--;
+
+            boolean anyMoving = moving();
+            if (anyMoving && ++ticksSinceKeyframe >= KEYFRAME_TICKS) {
+                rewind.push(game, false, turnShot);
+                ticksSinceKeyframe = 0;
+            }
+
+            if (!anyMoving && turnShot) {
+                turnShot = false;
+                game.events.publish(EventBus.TURN_ENDED, null, null, game.getCurrentPlayer(), 0, 0);
+                commitTurnEvent();
+                if (game.allGone()) {
+                    game.events.publish(EventBus.GAME_OVER, null, null, game.leader(), 0, 0);
+                    game.events.dispatch();
+                    stopAllTimers();
+                    autosaver.clear();
+                    replay.endTick();
+                    if (feed != null) feed.publish(game, ++frames, true);
+                    saveReplay();
+                    saveShotCache();
+                    saveShotLog();
+                    resultScreen.show(game, System.currentTimeMillis() - startedAt);
+                    card.show(cards, "result");
+                    return false;
+                } else {
+                    // next player's turn sequentially
+                    game.events.dispatch();
+                    game.nextTurn();
+                    replay.nextTurn();
+                    openTurnEvent();
+                    rewind.push(game, true, false);
+                    ticksSinceKeyframe = 0;
+                    autosaver.save(game);
+                    // schedule bot if it's bot's turn
+                    if (game.getCurrentPlayer() instanceof BotPlayer) scheduleBot();
+                }
+            }
+            replay.endTick();
+            return true;
+        }
+
+        /**
+         * Undoes back to the start of the most recent human turn: the current one if a shot has been
+         * taken in it, otherwise the one before.
+         */
+        void undoTurn() {
+            if (game == null || scrubIndex >= 0) return;
+            boolean atTurnStart = !turnShot && !moving() && !input.hasShot();
+            boolean skippedCurrent = false;
+            for (int i = rewind.size() - 1; i >= 0; i--) {
+                RewindBuffer.Snapshot s = rewind.get(i);
+                if (!s.turnStart) continue;
+                if (atTurnStart && !skippedCurrent) { skippedCurrent = true; continue; }
+                if (game.players.get(s.turnIndex) instanceof BotPlayer) continue;
+                restoreTo(i);
+                return;
+            }
+        }
+
+        /** Steps through snapshots while paused; the first step back also records the live state. */
+        void scrub(int dir) {
+            if (game == null) return;
+            if (scrubIndex < 0) {
+                if (dir > 0) return;
+                botWaitTicks = 0;
+                rewind.push(game, false, turnShot);
+                scrubIndex = rewind.size() - 1;
+            }
+            scrubIndex = Math.max(0, Math.min(rewind.size() - 1, scrubIndex + dir));
+            rewind.restore(scrubIndex, game);
+        }
+
+        void resumeFromScrub() {
+            if (scrubIndex < 0) return;
+            restoreTo(scrubIndex);
+        }
+
+        /** Restores snapshot i, drops the newer ones and continues play from there. */
+        void restoreTo(int i) {
+            botWaitTicks = 0;
+            rewind.restore(i, game);
+            rewind.truncateAfter(i);
+            RewindBuffer.Snapshot s = rewind.get(i);
+            turnShot = s.turnShot;
+            selected = null; dragStart = dragNow = null;
+            input.reset();
+            Arrays.fill(popTtl, 0);
+            scrubIndex = -1;
+            ticksSinceKeyframe = 0;
+            if (s.turnStart) autosaver.save(game);
+            replay = Replay.start(game);
+            shooter = null;
+            openTurnEvent();
+            if (!turnShot && !game.moving() && game.getCurrentPlayer() instanceof BotPlayer) scheduleBot();
+            wake();
+        }
+
+        void scheduleBot() {
+            Player cp = game.getCurrentPlayer();
+            if (!(cp instanceof BotPlayer)) return;
+            BotPlayer bot = (BotPlayer) cp;
+            // reaction time in loop ticks (the shot fires at the start of the tick that reaches zero)
+            botWaitTicks = Math.max(1, (bot.reactionTime + TICK_MS - 1) / TICK_MS);
+            // the search runs on its worker while the reaction delay counts down
+            botPlan = game.difficulty == BotDifficulty.HARD ? botSearch.begin(game, bot, () -> SwingUtilities.invokeLater(this::wake)) : null;
+            wake();
+        }
+
+        /** Sends one of the bot's marbles toward the nearest circle; returns the marble, or null if none. */
+        Marble performBotShot() {
+            Player p = game.getCurrentPlayer();
+            if (!(p instanceof BotPlayer)) return null;
+            BotPlayer bot = (BotPlayer) p;
+            JfrEvents.BotDecision jfr = new JfrEvents.BotDecision();
+            jfr.begin();
+
+            Marble shot = null;
+            boolean searched = game.difficulty == BotDifficulty.HARD;
+            if (searched) {
+                // searched shot, reused from the shot cache when this board was seen before
+                shot = botPlan != null ? botSearch.finish(game, bot, botPlan) : botSearch.plan(game, bot);
+                botPlan = null;
+                if (shot != null) {
+                    shot.lastTouchedBy = bot;
+                    bot.useThrowable();
+                }
+            }
+            if (shot == null) shot = BotPlayer.shoot(game, bot, bot.accuracy);
+            if (jfr.shouldCommit()) {
+                jfr.player = bot.name;
+                jfr.difficulty = game.difficulty.name();
+                jfr.candidates = searched ? botSearch.lastCandidates : 1;
+                jfr.cacheHit = searched && botSearch.lastHit;
+                jfr.commit();
+            }
+            return shot;
+        }
+
+        /** Starts timing the current player's turn for the JFR turn event, if it is recorded. */
+        void openTurnEvent() {
+            turnEvent = null;
+            if (!JfrEvents.TURN.isEnabled()) return;
+            turnEvent = new JfrEvents.Turn();
+            turnEvent.begin();
+            turnCollectedAtStart = game.getCurrentPlayer().collected;
+            turnTicksAtStart = loopTicks;
+        }
+
+        void commitTurnEvent() {
+            if (turnEvent == null) return;
+            Player p = game.getCurrentPlayer();
+            turnEvent.player = p.name;
+            turnEvent.bot = p instanceof BotPlayer;
+            turnEvent.ticks = loopTicks - turnTicksAtStart;
+            turnEvent.scored = p.collected - turnCollectedAtStart;
+            turnEvent.commit();
+            turnEvent = null;
+        }
+
+        /** Called when a shot's velocity is applied: records it for the replay and the shot analytics. */
+        void shotFired(Marble m, double at) {
+            replay.shot(game, m, at);
+            shooter = m.lastTouchedBy;
+            shotX = m.x; shotY = m.y;
+            shotAngle = Math.atan2(m.vy, m.vx);
+            shotForce = Math.hypot(m.vx, m.vy);
+            shotKnocked = 0;
+        }
+
+        void recordShot() {
+            int diff = shooter instanceof BotPlayer ? game.difficulty.ordinal() : -1;
+            double w = game.arena.width, h = game.arena.height;
+            if (shotLog.append(shotX, shotY, shotAngle, shotForce, w, h, shotKnocked, game.players.indexOf(shooter), diff)) saveShotLog();
+            shotStats.add(shotX, shotY, w, h, shotAngle, shotForce, shotKnocked);
+            shooter = null;
+        }
+
+        /** Angle and force histograms of all logged shots; bar height is shots, colour is success rate. */
+        void drawShotHistograms(Graphics2D g2) {
+            ShotAnalytics s = shotStats;
+            int x0 = getWidth() - 330, y0 = getHeight() - 190;
+            g2.setColor(new Color(0, 0, 0, 170));
+            g2.fillRect(x0, y0, 320, 180);
+            g2.setColor(Color.WHITE);
+            g2.setFont(GameRenderer.PERF_FONT);
+            g2.drawString(String.format("%d shots  %.0f%% knock out  %d marbles", s.shots, s.successRate() * 100, s.knocked), x0 + 8, y0 + 16);
+            g2.drawString("angle", x0 + 8, y0 + 92);
+            g2.drawString("force 0.." + (int) ShotAnalytics.MAX_FORCE, x0 + 8, y0 + 172);
+            for (int i = 0; i < ShotAnalytics.ANGLE_BINS; i++) {
+                drawBar(g2, x0 + 8 + i * 8, y0 + 78, 7, s.angleShots[i], s.angleHits[i], s.maxAngleShots);
+            }
+            for (int i = 0; i < ShotAnalytics.FORCE_BINS; i++) {
+                drawBar(g2, x0 + 8 + i * 12, y0 + 158, 11, s.forceShots[i], s.forceHits[i], s.maxForceShots);
+            }
+        }
+
+        private void drawBar(Graphics2D g2, int x, int baseY, int w, long n, long hits, long max) {
+            if (n == 0) return;
+            int h = (int) Math.max(1, 50 * n / max);
+            g2.setColor(Color.getHSBColor(hits / (float) n / 3f, 0.9f, 1f)); // red..green as in the heatmap
+            g2.fillRect(x, baseY - h, w, h);
+        }
+
+        /** Writes the finished game's replay on the autosave thread, for ReplayExport. */
+        void saveReplay() {
+            ByteBuffer buf = replay.encode();
+            autosaver.io.execute(() -> {
+                try {
+                    GameSave.write(Replay.DIR.resolve("last.holr"), buf);
+                } catch (IOException e) {
+                    System.err.println("replay save failed: " + e);
+                }
+            });
+        }
+
+        /**
+         * Project estimated path for a shooter given initial vx/vy.
+         * Stops when path gets far outside or when it intersects any marble (distance threshold).
+         */
+        List<Point2D> projectPath(double sx, double sy, double initVx, double initVy, Marble self) {
+            List<Point2D> pts = new ArrayList<>();
+            double px = sx, py = sy;
+            double vx = initVx, vy = initVy;
+            pts.add(new Point2D.Double(px, py));
+            double dt = 0.8;
+            for (int step = 0; step < 300; step++) {
+                px += vx * dt; py += vy * dt;
+                vx *= 0.995; vy *= 0.995;
+                pts.add(new Point2D.Double(px, py));
+                // collision with other marbles: ignore very near the shooter initial marble (self)
+                for (Marble m : game.marbles) {
+                    if (m == self) continue; // skip self
+                    double d = Math.hypot(px - m.x, py - m.y);
+                    if (d <= m.R * 2.0) {
+                        return pts;
+                    }
+                }
+                if (game.arena.outOfBounds(px, py)) return pts;
+                if (game.arena.obstacles != null && game.arena.obstacles.overlaps(px, py, self.R)) return pts;
+            }
+            return pts;
+        }
+
+        /**
+         * Predicted paths of every marble the shot sets moving, in its owner's colour, and rings on
+         * the neutral marbles it would knock out of a circle (solid where they are, dashed where
+         * they stop).
+         */
+        void drawPrediction(Graphics2D g2, RenderGovernor.Tier q) {
+            ShotPreview pv = preview;
+            Composite old = g2.getComposite();
+            Stroke oldStroke = g2.getStroke();
+            g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.6f));
+            int step = 2 * q.previewStride;
+            for (int i = 0; i < pv.start.length && pv.start[i] != null; i++) {
+                int n = pv.len[i];
+                if (n < 4) continue;
+                float[] p = pv.path[i];
+                Player owner = pv.start[i].owner;
+                g2.setColor(i == pv.marble ? Color.WHITE : owner != null ? owner.color : Color.LIGHT_GRAY);
+                int px = (int) p[0], py = (int) p[1];
+                for (int k = step; k < n + step - 2; k += step) {
+                    int e = Math.min(k, n - 2);
+                    int x = (int) p[e], y = (int) p[e + 1];
+                    g2.drawLine(px, py, x, y);
+                    px = x; py = y;
+                }
+            }
+            g2.setComposite(old);
+            g2.setColor(Color.YELLOW);
+            Stroke dashed = new BasicStroke(2f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f, new float[] {4f, 4f}, 0f);
+            for (int k = 0; k < pv.exits; k++) {
+                int i = pv.exited[k];
+                float[] p = pv.path[i];
+                double r = pv.start[i].R + 4;
+                g2.setStroke(new BasicStroke(2f));
+                g2.draw(new Ellipse2D.Double(pv.origin[2 * i] - r, pv.origin[2 * i + 1] - r, 2 * r, 2 * r));
+                if (pv.len[i] >= 4) {
+                    g2.setStroke(dashed);
+                    g2.draw(new Ellipse2D.Double(p[pv.len[i] - 2] - r, p[pv.len[i] - 1] - r, 2 * r, 2 * r));
+                }
+            }
+            g2.setStroke(oldStroke);
+            if (!pv.done) {
+                g2.setFont(GameRenderer.NOTE_FONT);
+                g2.drawString("predicting... " + pv.ticks, (int) selected.x + 12, (int) selected.y + 24);
+            }
+        }
+
+        @Override
+        public void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (game == null) return;
+            long paintStart = System.nanoTime();
+            RenderGovernor.Tier q = governor.tier;
+            Graphics2D g2 = (Graphics2D) g;
+            AffineTransform screen = g2.getTransform();
+            camera.apply(g2);
+            renderer.drawBoard(g2, game, camera.viewport(getWidth(), getHeight()), q);
+            if (showShots) {
+                // shot origins, one heatmap pixel per cell, stretched over this arena
+                g2.drawImage(shotStats.heat, 0, 0, (int) game.arena.width, (int) game.arena.height, null);
+            }
+
+            // score popups
+            g2.setFont(GameRenderer.LABEL_FONT);
+            for (int i = 0; i < POPUPS; i++) {
+                if (popTtl[i] == 0) continue;
+                int rise = POPUP_TICKS - popTtl[i];
+                g2.setColor(popColor[i]);
+                g2.drawString("+1", (int) popX[i] - 8, (int) popY[i] - 14 - rise / 2);
+            }
+
+            // projected path while dragging
+            if (predict && preview.active() && selected != null) {
+                drawPrediction(g2, q);
+            } else if (selected != null && dragStart != null && dragNow != null) {
+                double dx = dragStart.x - dragNow.x;
+                double dy = dragStart.y - dragNow.y;
+                double raw = Math.hypot(dx, dy);
+                double speed = Math.min(MAX_FORCE, raw / 8.0);
+                double angle = Math.atan2(dy, dx);
+                double ivx = speed * Math.cos(angle), ivy = speed * Math.sin(angle);
+                List<Point2D> path = projectPath(selected.x, selected.y, ivx, ivy, selected);
+                Composite old = g2.getComposite();
+                g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.45f));
+                g2.setColor(Color.WHITE);
+                int stride = q.previewStride;
+                for (int i = stride; i < path.size() + stride - 1; i += stride) {
+                    Point2D a = path.get(i - stride), b = path.get(Math.min(i, path.size() - 1));
+                    g2.drawLine((int) a.getX(), (int) a.getY(), (int) b.getX(), (int) b.getY());
+                }
+                g2.setComposite(old);
+            }
+
+            // drag line + force %
+            if (dragStart != null && dragNow != null) {
+                double dx = dragStart.x - dragNow.x;
+                double dy = dragStart.y - dragNow.y;
+                double raw = Math.hypot(dx, dy);
+                double pct = Math.min(100.0, raw / (MAX_FORCE * 8.0) * 100.0);
+                g2.setColor(Color.WHITE);
+                g2.drawLine(dragStart.x, dragStart.y, dragNow.x, dragNow.y);
+                renderer.drawForce(g2, (int) pct, dragNow.x + 12, dragNow.y - 6);
+            }
+
+            // HUD is drawn in screen coordinates
+            g2.setTransform(screen);
+
+            renderer.drawHud(g2, game, getWidth(), q);
+            if (showShots) drawShotHistograms(g2);
+
+            if (scrubIndex >= 0) {
+                g2.setFont(GameRenderer.BANNER_FONT);
+                g2.setColor(Color.ORANGE);
+                g2.drawString("REWIND " + (scrubIndex + 1) + "/" + rewind.size() + "   [ / ] scrub   Enter resume   Esc live",
+                        getWidth() / 2 - 260, getHeight() - 60);
+                g2.setColor(Color.WHITE);
+            }
+
+            if (showPerf) {
+                g2.setFont(GameRenderer.PERF_FONT);
+                g2.drawString(String.format("paint %.2f ms (avg %.2f, budget %.1f)  quality %s  marbles %d",
+                        governor.lastNanos / 1e6, governor.avgMs(), governor.budgetMs(), q, game.marbles.size()), 10, getHeight() - 26);
+                g2.drawString("last quality change: " + lastTierChange, 10, getHeight() - 10);
+                g2.drawString(String.format("input-to-present avg %.1f ms  p95 %.1f ms", input.latencyAvgMs(), input.latencyP95Ms()), 10, getHeight() - 42);
+                ShotCache sc = botSearch.cache;
+                g2.drawString(String.format("shot cache %d/%d boards ~%d KB  hit rate %.0f%% (%d/%d)  last search %.1f ms",
+                        sc.size(), sc.capacity, sc.memoryBytes() / 1024, sc.hitRate() * 100, sc.hits, sc.hits + sc.misses,
+                        botSearch.lastSearchNanos / 1e6), 10, getHeight() - 58);
+                g2.drawString(String.format("loop %s  ticks %d  parked %d times  hud rows rebuilt %d", loop.isRunning() ? "running" : "parked",
+                        loopTicks, loopParks, renderer.hudRebuilds), 10, getHeight() - 74);
+            }
+            long paintNanos = System.nanoTime() - paintStart;
+            governor.record(paintNanos);
+            if (frameEvent != null) {
+                frameEvent.paintNanos = paintNanos;
+                frameEvent.tier = q.name();
+                frameEvent.commit();
+                frameEvent = null;
+            }
+            long inputNanos = input.painted();
+            if (inputNanos != 0) {
+                // the RepaintManager blits the back buffer after paintComponent returns; an event queued
+                // now runs after that, so the sample covers the buffer being shown, not just painted
+                SwingUtilities.invokeLater(() -> {
+                    Toolkit.getDefaultToolkit().sync();
+                    input.presented(inputNanos, System.nanoTime());
+                });
+            }
+        }
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            if (game == null) return;
+            if (!SwingUtilities.isLeftMouseButton(e)) { panLast = e.getPoint(); return; }
+            if (scrubIndex >= 0) return;
+            Player cp = game.getCurrentPlayer();
+            if (cp instanceof BotPlayer) return;
+            Point p = camera.toArena(e.getPoint());
+            for (Marble m : game.marbles) {
+                if (m.owner == cp && !m.moving()) {
+                    double d = Math.hypot(p.x - m.x, p.y - m.y);
+                    if (d <= m.R) {
+                        selected = m;
+                        dragStart = new Point((int) m.x, (int) m.y);
+                        dragNow = p;
+                        input.sample(InputPipeline.eventNanos(e), camera.toArenaX(e.getX()), camera.toArenaY(e.getY()));
+                        if (immediateInput) repaint();
+                        wake();
+                        break;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            if (panLast != null) {
+                camera.pan(e.getX() - panLast.x, e.getY() - panLast.y);
+                panLast = e.getPoint();
+                repaint();
+            } else if (selected != null) {
+                dragNow = camera.toArena(e.getPoint());
+                input.sample(InputPipeline.eventNanos(e), camera.toArenaX(e.getX()), camera.toArenaY(e.getY()));
+                // repaint now instead of waiting for the next loop tick
+                if (immediateInput) repaint();
+            }
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            if (panLast != null) { panLast = null; return; }
+            if (selected != null && dragStart != null && dragNow != null) {
+                long t = InputPipeline.eventNanos(e);
+                input.sample(t, camera.toArenaX(e.getX()), camera.toArenaY(e.getY()));
+                Point2D rp = input.releasePoint(t);
+                double dx = dragStart.x - rp.getX();
+                double dy = dragStart.y - rp.getY();
+                double speed = Math.min(MAX_FORCE, Math.hypot(dx, dy) / 8.0);
+                double angle = Math.atan2(dy, dx);
+                // applied by the loop at the sub-tick instant of the release
+                input.queueShot(t, selected, speed * Math.cos(angle), speed * Math.sin(angle));
+                selected.lastTouchedBy = game.getCurrentPlayer();
+                // decrement throwable immediately when shot
+                if (selected.owner != null) selected.owner.useThrowable();
+
+                // clear selection and mark turn end
+                selected = null; dragStart = null; dragNow = null;
+                preview.clear();
+                turnShot = true;
+                wake();
+            }
+        }
+
+        @Override public void mouseClicked(MouseEvent e) {}
+        @Override public void mouseEntered(MouseEvent e) {}
+        @Override public void mouseExited(MouseEvent e) {}
+        @Override public void mouseMoved(MouseEvent e) {}
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(HolenGame::new);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+/**
+ * Batch marble integration over flat arrays: position update, velocity decay and the
+ * stop-threshold snap, with the same arithmetic as {@link HolenGame.Marble#update(double)}.
+ *
+ * {@link #SELECTED} is chosen once at startup: the Vector API kernel when VectorKernel is on the
+ * class path and the jdk.incubator.vector module is resolved, otherwise the scalar loop.
+ * -Dholen.simd=false forces the scalar kernel. VectorKernel lives in its own source root so that
+ * src/ builds with plain javac; it is compiled separately against the classes:
+ *
+ *   javac -d out src/*.java
+ *   javac --add-modules jdk.incubator.vector -cp out -d out src-vector/VectorKernel.java
+ *   java --add-modules jdk.incubator.vector -cp out HolenGame
+ */
+interface IntegrationKernel {
+    /** Below this many moving marbles, Game.integrate skips packing and calls Marble.update directly. */
+    int MIN_BATCH = 256;
+
+    IntegrationKernel SELECTED = select();
+
+    void integrate(double[] x, double[] y, double[] vx, double[] vy, int from, int to, double dt);
+
+    String name();
+
+    static IntegrationKernel select() {
+        if (Boolean.parseBoolean(System.getProperty("holen.simd", "true"))) {
+            try {
+                // loaded reflectively so this file compiles and runs without the incubator module
+                return (IntegrationKernel) Class.forName("VectorKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // incubator module not resolved: fall through to scalar
+            }
+        }
+        return new Scalar();
+    }
+
+    final class Scalar implements IntegrationKernel {
+        @Override
+        public void integrate(double[] x, double[] y, double[] vx, double[] vy, int from, int to, double dt) {
+            final double decay = HolenGame.Marble.decay(dt);
+            final double stopSq = HolenGame.Marble.STOP_SPEED * HolenGame.Marble.STOP_SPEED;
+            for (int i = from; i < to; i++) {
+                double vxi = vx[i], vyi = vy[i];
+                x[i] += vxi * dt; y[i] += vyi * dt;
+                vxi *= decay; vyi *= decay;
+                if (vxi * vxi + vyi * vyi < stopSq) { vxi = 0; vyi = 0; }
+                vx[i] = vxi; vy[i] = vyi;
+            }
+        }
+
+        @Override
+        public String name() { return "scalar"; }
+    }
+}
@@ -0,0 +1,87 @@
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder events for correlating hitches with game state. All are disabled unless a
+ * recording enables them, e.g. with the bundled profile:
+ *
+ *   java -XX:StartFlightRecording:settings=src/holen.jfc,filename=holen.jfr HolenGame
+ *
+ * None record stack traces. Per-frame and per-step events are allocated through the usual
+ * begin/shouldCommit idiom, or behind an {@link EventType#isEnabled()} check where the event has to
+ * outlive the method, so a disabled event costs a branch.
+ */
+final class JfrEvents {
+    static final String CATEGORY = "Holen";
+
+    private JfrEvents() {}
+
+    /** One displayed frame: from the loop tick that produced it to the end of the paint that shows it. */
+    @Name("holen.Frame")
+    @Label("Frame")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class Frame extends Event {
+        @Label("Physics") @Timespan(Timespan.NANOSECONDS) long physicsNanos;
+        @Label("Paint") @Timespan(Timespan.NANOSECONDS) long paintNanos;
+        @Label("Ticks") @Description("Physics ticks run for this frame; more than one with bot turbo") int ticks;
+        @Label("Marbles") int marbles;
+        @Label("Moving") boolean moving;
+        @Label("Quality Tier") String tier;
+    }
+
+    static final EventType FRAME = EventType.getEventType(Frame.class);
+
+    /** One Game.step: integration, collision resolution and settling. */
+    @Name("holen.CollisionStep")
+    @Label("Collision Step")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class CollisionStep extends Event {
+        @Label("Solver") @Description("pairwise, contact or tiles") String solver;
+        @Label("Marbles") int marbles;
+        @Label("Pairs Tested") @Description("Not counted by the multi-threaded tile solver") int pairsTested;
+        @Label("Contacts") @Description("Not counted by the multi-threaded tile solver") int contacts;
+    }
+
+    /** Choosing and applying one bot shot. */
+    @Name("holen.BotDecision")
+    @Label("Bot Decision")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class BotDecision extends Event {
+        @Label("Player") String player;
+        @Label("Difficulty") String difficulty;
+        @Label("Candidates") @Description("Shots simulated; 0 when the shot cache had the board") int candidates;
+        @Label("Cache Hit") boolean cacheHit;
+    }
+
+    /** One turn, from the turn start to the moment every marble has come to rest. */
+    @Name("holen.Turn")
+    @Label("Turn")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class Turn extends Event {
+        @Label("Player") String player;
+        @Label("Bot") boolean bot;
+        @Label("Ticks") long ticks;
+        @Label("Marbles Scored") int scored;
+    }
+
+    static final EventType TURN = EventType.getEventType(Turn.class);
+
+    /** Loading an image or a persisted file. */
+    @Name("holen.AssetLoad")
+    @Label("Asset Load")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class AssetLoad extends Event {
+        @Label("Kind") @Description("image, autosave, shot cache or shot history") String kind;
+        @Label("Path") String path;
+        @Label("Entries") @Description("Pixels, marbles, boards or shots loaded") long entries;
+    }
+}
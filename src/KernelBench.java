@@ -0,0 +1,93 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the scalar and Vector API integration kernels, first on flat arrays, then through
+ * Game.integrate (the moved-list scan, packing and unpacking included) against plain Marble.update.
+ *
+ *   java --add-modules jdk.incubator.vector -cp out KernelBench [marbles] [iterations]
+ *
+ * (with VectorKernel compiled into out, see IntegrationKernel). Both kernels start from the same
+ * random state; the final arrays must be identical. The game pass is run with every marble moving
+ * and with a tenth moving, the rest at rest.
+ */
+final class KernelBench {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iters = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        IntegrationKernel scalar = new IntegrationKernel.Scalar();
+        IntegrationKernel selected = IntegrationKernel.SELECTED;
+        System.out.printf("marbles=%d iterations=%d selected=%s%n", n, iters, selected.name());
+
+        double[][] a = state(n), b = state(n);
+        for (int round = 0; round < 3; round++) {   // first rounds are JIT warm-up
+            double s = time(scalar, a, iters), v = time(selected, b, iters);
+            System.out.printf("round %d: %-20s %6.3f ns/marble   %-20s %6.3f ns/marble   x%.2f%n",
+                    round, scalar.name(), s / n, selected.name(), v / n, s / v);
+        }
+        boolean same = true;
+        for (int k = 0; k < 4; k++) same &= Arrays.equals(a[k], b[k]);
+        System.out.println("results identical: " + same);
+
+        IntegrationKernel[] kernels = {null, scalar, selected};
+        for (int every : new int[] {1, 10}) {
+            System.out.printf("Game.integrate, %d of %d moving:%n", n / every, n);
+            for (int round = 0; round < 3; round++) {
+                StringBuilder line = new StringBuilder("round " + round + ":");
+                for (IntegrationKernel k : kernels) {
+                    HolenGame.Game g = game(n, every);
+                    g.kernel = k;
+                    line.append(String.format("   %-20s %6.3f ns/marble", k == null ? "Marble.update" : k.name(), time(g, every, iters) / n));
+                }
+                System.out.println(line);
+            }
+        }
+    }
+
+    /** A game on the large arena holding n loose marbles; every every-th one gets a velocity. */
+    static HolenGame.Game game(int n, int every) {
+        HolenGame.Game g = new HolenGame.Game(HolenGame.GameMode.PVP, 2, 0, 1, 0, HolenGame.BotDifficulty.NORMAL, HolenGame.Arena.large(), 1);
+        g.marbles.clear();
+        double[][] s = state(n);
+        for (int i = 0; i < n; i++) g.marbles.add(new HolenGame.Marble(s[0][i], s[1][i], null, true));
+        return g;
+    }
+
+    /**
+     * Mean nanoseconds per Game.integrate call. The moved list is cleared after each call as
+     * Game.settle does; velocities are re-seeded every 500 passes so the same marbles keep moving.
+     */
+    static double time(HolenGame.Game g, int every, int iters) {
+        List<HolenGame.Marble> ms = g.marbles;
+        long t0 = System.nanoTime();
+        for (int it = 0; it < iters; it++) {
+            if (it % 500 == 0) for (int i = 0; i < ms.size(); i += every) { ms.get(i).vx = 8; ms.get(i).vy = -8; }
+            g.integrate(1.0);
+            for (int k = 0; k < g.movedList.size(); k++) g.movedList.get(k).moved = false;
+            g.movedList.clear();
+        }
+        return (double) (System.nanoTime() - t0) / iters;
+    }
+
+    static double[][] state(int n) {
+        HolenGame.Rng rng = new HolenGame.Rng(1);
+        double[][] s = new double[4][n];
+        for (int i = 0; i < n; i++) {
+            s[0][i] = rng.nextDouble() * 2000;
+            s[1][i] = rng.nextDouble() * 1300;
+            s[2][i] = (rng.nextDouble() - 0.5) * 20;
+            s[3][i] = (rng.nextDouble() - 0.5) * 20;
+        }
+        return s;
+    }
+
+    /** Mean nanoseconds per full pass. Velocities are re-seeded every 500 passes so lanes keep moving. */
+    static double time(IntegrationKernel k, double[][] s, int iters) {
+        long t0 = System.nanoTime();
+        for (int it = 0; it < iters; it++) {
+            if (it % 500 == 0) for (int i = 0; i < s[2].length; i++) { s[2][i] += 5; s[3][i] -= 5; }
+            k.integrate(s[0], s[1], s[2], s[3], 0, s[0].length, 1.0);
+        }
+        return (double) (System.nanoTime() - t0) / iters;
+    }
+}
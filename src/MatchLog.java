@@ -0,0 +1,204 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Append-only, memory-mapped match history.
+ *
+ * The file is a 64-byte header followed by fixed-size {@link #RECORD_SIZE} records. The file is
+ * mapped in {@link #SEGMENT_SIZE} segments so it can grow past the 2 GB limit of a single mapping.
+ * A record is written first and the header count is bumped afterwards, so a crash mid-append
+ * leaves the log readable with the last complete record.
+ *
+ * Per-player stats are kept in memory and a leaderboard (wins, then total score) is updated
+ * incrementally on every append, so {@link #top(int)} costs O(K) however long the log is. Opening
+ * rebuilds them with one pass over the log, so the game opens it off the EDT. Players are keyed by
+ * their stored name ({@link #storedName}), so a long name is the same player before and after a
+ * restart.
+ */
+final class MatchLog implements AutoCloseable {
+    static final int MAGIC = 0x484F4C4D; // "HOLM"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int MAX_PLAYERS = 8;
+    static final int NAME_BYTES = 12;
+    static final int PLAYER_BYTES = 16;     // name, score short, bot byte, pad
+    static final int RECORD_SIZE = 32 + MAX_PLAYERS * PLAYER_BYTES;
+    static final long SEGMENT_SIZE = RECORD_SIZE * 8192L; // whole records only, so none straddles a segment
+    static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".holen", "matches.log");
+
+    /** One decoded match. */
+    static class Match {
+        long timestamp, seed;
+        int durationMs;
+        HolenGame.GameMode mode;
+        HolenGame.BotDifficulty difficulty;
+        int winner;
+        String[] names;
+        int[] scores;
+        boolean[] bots;
+    }
+
+    static class PlayerStats {
+        final String name;
+        int games, wins;
+        long totalScore;
+        int bestScore;
+        PlayerStats(String name) { this.name = name; }
+    }
+
+    static final Comparator<PlayerStats> RANKING = Comparator.<PlayerStats>comparingInt(s -> -s.wins)
+            .thenComparingLong(s -> -s.totalScore)
+            .thenComparing(s -> s.name);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private long count;
+    private final Map<String, PlayerStats> stats = new HashMap<>();
+    private final TreeSet<PlayerStats> leaderboard = new TreeSet<>(RANKING);
+
+    private MatchLog(FileChannel channel) throws IOException {
+        this.channel = channel;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) == 0) {
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE).putLong(16, 0);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_SIZE) {
+            throw new IOException("not a Holen match log (or unsupported version)");
+        }
+        count = header.getLong(16);
+        // rebuild the in-memory index with one sequential pass over the log
+        for (long i = 0; i < count; i++) index(read(i));
+    }
+
+    static MatchLog open(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        return new MatchLog(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    long size() { return count; }
+
+    private MappedByteBuffer segment(int s) throws IOException {
+        while (segments.size() <= s) {
+            MappedByteBuffer seg = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + segments.size() * SEGMENT_SIZE, SEGMENT_SIZE);
+            seg.order(ByteOrder.LITTLE_ENDIAN);
+            segments.add(seg);
+        }
+        return segments.get(s);
+    }
+
+    /** Appends a finished game and updates the index. Players beyond {@link #MAX_PLAYERS} are dropped. */
+    synchronized void append(HolenGame.Game g, long durationMs) throws IOException {
+        Match m = new Match();
+        m.timestamp = System.currentTimeMillis();
+        m.seed = g.seed;
+        m.durationMs = (int) Math.min(Integer.MAX_VALUE, durationMs);
+        m.mode = g.mode;
+        m.difficulty = g.difficulty;
+        int n = Math.min(MAX_PLAYERS, g.players.size());
+        m.names = new String[n];
+        m.scores = new int[n];
+        m.bots = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            HolenGame.Player p = g.players.get(i);
+            m.names[i] = storedName(p.name);
+            m.scores[i] = p.collected;
+            m.bots[i] = p instanceof HolenGame.BotPlayer;
+            if (m.scores[i] > m.scores[m.winner]) m.winner = i;
+        }
+
+        long pos = count * RECORD_SIZE;
+        MappedByteBuffer seg = segment((int) (pos / SEGMENT_SIZE));
+        int off = (int) (pos % SEGMENT_SIZE);
+        seg.putLong(off, m.timestamp).putLong(off + 8, m.seed).putInt(off + 16, m.durationMs);
+        seg.put(off + 20, (byte) m.mode.ordinal()).put(off + 21, (byte) m.difficulty.ordinal());
+        seg.put(off + 22, (byte) n).put(off + 23, (byte) m.winner);
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            int p = off + 32 + i * PLAYER_BYTES;
+            byte[] name = i < n ? m.names[i].getBytes(StandardCharsets.UTF_8) : new byte[0];
+            for (int b = 0; b < NAME_BYTES; b++) seg.put(p + b, b < name.length ? name[b] : 0);
+            seg.putShort(p + 12, (short) (i < n ? m.scores[i] : 0));
+            seg.put(p + 14, (byte) (i < n && m.bots[i] ? 1 : 0));
+        }
+        count++;
+        header.putLong(16, count);
+        index(m);
+    }
+
+    /** The name as written to a record: at most NAME_BYTES of UTF-8, cut at a character boundary. */
+    static String storedName(String name) {
+        int bytes = 0, end = 0;
+        while (end < name.length()) {
+            int cp = name.codePointAt(end);
+            int len = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+            if (bytes + len > NAME_BYTES) break;
+            bytes += len;
+            end += Character.charCount(cp);
+        }
+        return name.substring(0, end);
+    }
+
+    /** Reads record i (0-based). */
+    synchronized Match read(long i) throws IOException {
+        long pos = i * RECORD_SIZE;
+        MappedByteBuffer seg = segment((int) (pos / SEGMENT_SIZE));
+        int off = (int) (pos % SEGMENT_SIZE);
+        Match m = new Match();
+        m.timestamp = seg.getLong(off);
+        m.seed = seg.getLong(off + 8);
+        m.durationMs = seg.getInt(off + 16);
+        m.mode = HolenGame.GameMode.values()[seg.get(off + 20)];
+        m.difficulty = HolenGame.BotDifficulty.values()[seg.get(off + 21)];
+        int n = seg.get(off + 22);
+        m.winner = seg.get(off + 23);
+        m.names = new String[n];
+        m.scores = new int[n];
+        m.bots = new boolean[n];
+        byte[] name = new byte[NAME_BYTES];
+        for (int k = 0; k < n; k++) {
+            int p = off + 32 + k * PLAYER_BYTES;
+            int len = 0;
+            for (; len < NAME_BYTES && seg.get(p + len) != 0; len++) name[len] = seg.get(p + len);
+            m.names[k] = new String(name, 0, len, StandardCharsets.UTF_8);
+            m.scores[k] = seg.getShort(p + 12);
+            m.bots[k] = seg.get(p + 14) == 1;
+        }
+        return m;
+    }
+
+    private void index(Match m) {
+        for (int i = 0; i < m.names.length; i++) {
+            PlayerStats s = stats.computeIfAbsent(m.names[i], PlayerStats::new);
+            leaderboard.remove(s);
+            s.games++;
+            if (i == m.winner) s.wins++;
+            s.totalScore += m.scores[i];
+            s.bestScore = Math.max(s.bestScore, m.scores[i]);
+            leaderboard.add(s);
+        }
+    }
+
+    synchronized PlayerStats stats(String name) { return stats.get(storedName(name)); }
+
+    /** The K best players, best first. */
+    synchronized List<PlayerStats> top(int k) {
+        List<PlayerStats> out = new ArrayList<>(k);
+        for (PlayerStats s : leaderboard) {
+            if (out.size() == k) break;
+            out.add(s);
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        header.force();
+        for (MappedByteBuffer seg : segments) seg.force();
+        channel.close();
+    }
+}
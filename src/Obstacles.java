@@ -0,0 +1,332 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Static arena geometry: walls and polygon edges as segments, bumpers as circles, under a
+ * bounding-volume hierarchy built once when the arena is compiled.
+ *
+ * After the marble-marble pass of a step, every marble that moved queries the tree with the box its
+ * move swept (from its position at the start of the step), so the per-marble cost grows with the log of the obstacle count. A segment is
+ * swept as a capsule: crossing the band of half-width R around its line is a hit at the crossing
+ * point, so a fast shot cannot tunnel through a thin wall; otherwise the closest point pushes an
+ * overlapping marble out (resting contact, end caps). Bumpers cannot be tunnelled at these speeds
+ * and are resolved by overlap. A hit reflects the normal velocity with the primitive's restitution;
+ * bumpers kick (restitution above 1), capped at MAX_SPEED.
+ *
+ * Immutable once built, and queries keep their traversal stack local, so one instance can be used
+ * by several games on several threads.
+ */
+final class Obstacles {
+    static final byte SEGMENT = 0, BUMPER = 1;
+    static final int LEAF_SIZE = 2;
+    static final int MAX_DEPTH = 64;            // traversal stack; median splits keep depth ~ log2(primitives)
+    static final double MAX_SPEED = 24;
+    static final double WALL_RESTITUTION = 0.8, BUMPER_RESTITUTION = 1.2;
+
+    // primitives in leaf order. segment: (ax, ay) -> (bx, by), unit direction (ux, uy), length len;
+    // bumper: centre (ax, ay), radius len
+    final byte[] type;
+    final double[] ax, ay, bx, by, ux, uy, len, restitution;
+    final int[] polygon;                        // outline the segment belongs to, -1 for a free wall
+    // nodes depth-first: the left child of an inner node i is i + 1, the right one right[i];
+    // leaves have count > 0 and cover primitives [start, start + count)
+    final double[] minX, minY, maxX, maxY;
+    final int[] right, start, count;
+    final int nodes;
+    /** Polygon outlines as x, y pairs, for drawing. */
+    final float[][] outlines;
+    final long hash;
+
+    private Obstacles(int n, int nodeCapacity, float[][] outlines) {
+        type = new byte[n];
+        ax = new double[n]; ay = new double[n]; bx = new double[n]; by = new double[n];
+        ux = new double[n]; uy = new double[n]; len = new double[n]; restitution = new double[n];
+        polygon = new int[n];
+        minX = new double[nodeCapacity]; minY = new double[nodeCapacity]; maxX = new double[nodeCapacity]; maxY = new double[nodeCapacity];
+        right = new int[nodeCapacity]; start = new int[nodeCapacity]; count = new int[nodeCapacity];
+        this.outlines = outlines;
+        nodes = nodeCapacity;
+        hash = 0;
+    }
+
+    private Obstacles(Obstacles o, int nodes, long hash) {
+        type = o.type; ax = o.ax; ay = o.ay; bx = o.bx; by = o.by; ux = o.ux; uy = o.uy; len = o.len;
+        restitution = o.restitution; polygon = o.polygon;
+        minX = o.minX; minY = o.minY; maxX = o.maxX; maxY = o.maxY; right = o.right; start = o.start; count = o.count;
+        outlines = o.outlines;
+        this.nodes = nodes;
+        this.hash = hash;
+    }
+
+    int size() { return type.length; }
+
+    /** Collects primitives in file order; {@link #build()} compiles them. */
+    static final class Builder {
+        final List<double[]> prims = new ArrayList<>();  // type, ax, ay, bx, by, restitution, polygon
+        final List<float[]> outlines = new ArrayList<>();
+
+        Builder wall(double x1, double y1, double x2, double y2, double e) {
+            prims.add(new double[] {SEGMENT, x1, y1, x2, y2, e, -1});
+            return this;
+        }
+
+        Builder bumper(double cx, double cy, double r, double e) {
+            prims.add(new double[] {BUMPER, cx, cy, r, 0, e, -1});
+            return this;
+        }
+
+        /** Closed polygon from x, y pairs. */
+        Builder polygon(double[] xy, double e) {
+            int k = outlines.size(), n = xy.length / 2;
+            float[] outline = new float[2 * n];
+            for (int i = 0; i < n; i++) {
+                int j = (i + 1) % n;
+                prims.add(new double[] {SEGMENT, xy[2 * i], xy[2 * i + 1], xy[2 * j], xy[2 * j + 1], e, k});
+                outline[2 * i] = (float) xy[2 * i];
+                outline[2 * i + 1] = (float) xy[2 * i + 1];
+            }
+            outlines.add(outline);
+            return this;
+        }
+
+        boolean isEmpty() { return prims.isEmpty(); }
+
+        Obstacles build() {
+            int n = prims.size();
+            double[][] p = prims.toArray(new double[0][]);
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            Obstacles o = new Obstacles(n, Math.max(1, 2 * n - 1), outlines.toArray(new float[0][]));
+            int nodes = o.buildNode(p, order, 0, n, 0);
+            for (int k = 0; k < n; k++) {
+                double[] q = p[order[k]];
+                o.type[k] = (byte) q[0];
+                o.ax[k] = q[1]; o.ay[k] = q[2]; o.bx[k] = q[3]; o.by[k] = q[4];
+                o.restitution[k] = q[5];
+                o.polygon[k] = (int) q[6];
+                if (o.type[k] == SEGMENT) {
+                    double l = Math.max(1e-9, Math.hypot(q[3] - q[1], q[4] - q[2]));
+                    o.len[k] = l;
+                    o.ux[k] = (q[3] - q[1]) / l;
+                    o.uy[k] = (q[4] - q[2]) / l;
+                } else {
+                    o.len[k] = q[3];
+                }
+            }
+            return o.withHash(nodes);
+        }
+    }
+
+    private Obstacles withHash(int nodes) {
+        ByteBuffer buf = ByteBuffer.allocate(encodedSize(nodes));
+        encode(buf, nodes);
+        CRC32 crc = new CRC32();
+        crc.update(buf.flip());
+        return new Obstacles(this, nodes, crc.getValue());
+    }
+
+    private static double lo(double[] q, int axis) {
+        return q[0] == SEGMENT ? Math.min(q[1 + axis], q[3 + axis]) : q[1 + axis] - q[3];
+    }
+
+    private static double hi(double[] q, int axis) {
+        return q[0] == SEGMENT ? Math.max(q[1 + axis], q[3 + axis]) : q[1 + axis] + q[3];
+    }
+
+    /** Builds the subtree over order[from, to) at node index at; returns the next free node index. */
+    private int buildNode(double[][] p, int[] order, int from, int to, int at) {
+        double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+        double cx0 = Double.MAX_VALUE, cy0 = Double.MAX_VALUE, cx1 = -Double.MAX_VALUE, cy1 = -Double.MAX_VALUE;
+        for (int k = from; k < to; k++) {
+            double[] q = p[order[k]];
+            x0 = Math.min(x0, lo(q, 0)); y0 = Math.min(y0, lo(q, 1));
+            x1 = Math.max(x1, hi(q, 0)); y1 = Math.max(y1, hi(q, 1));
+            double cx = (lo(q, 0) + hi(q, 0)) / 2, cy = (lo(q, 1) + hi(q, 1)) / 2;
+            cx0 = Math.min(cx0, cx); cy0 = Math.min(cy0, cy); cx1 = Math.max(cx1, cx); cy1 = Math.max(cy1, cy);
+        }
+        minX[at] = x0; minY[at] = y0; maxX[at] = x1; maxY[at] = y1;
+        if (to - from <= LEAF_SIZE) {
+            start[at] = from;
+            count[at] = to - from;
+            return at + 1;
+        }
+        // median split on the longer axis of the centroid bounds
+        int axis = cx1 - cx0 >= cy1 - cy0 ? 0 : 1;
+        Integer[] sub = new Integer[to - from];
+        for (int k = from; k < to; k++) sub[k - from] = order[k];
+        java.util.Arrays.sort(sub, (a, b) -> Double.compare(lo(p[a], axis) + hi(p[a], axis), lo(p[b], axis) + hi(p[b], axis)));
+        for (int k = from; k < to; k++) order[k] = sub[k - from];
+        int mid = (from + to) >>> 1;
+        count[at] = 0;
+        int next = buildNode(p, order, from, mid, at + 1);
+        right[at] = next;
+        return buildNode(p, order, mid, to, next);
+    }
+
+    /** Resolves contacts with the static geometry for the marbles that moved this step. */
+    void collide(List<HolenGame.Marble> moved) {
+        int[] stack = new int[MAX_DEPTH];
+        for (int k = 0; k < moved.size(); k++) collide(moved.get(k), stack);
+    }
+
+    void collide(HolenGame.Marble m, int[] stack) {
+        double r = m.R;
+        double px = m.px, py = m.py;                            // where this step's move started
+        double qx0 = Math.min(px, m.x) - r, qy0 = Math.min(py, m.y) - r;
+        double qx1 = Math.max(px, m.x) + r, qy1 = Math.max(py, m.y) + r;
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int i = stack[--sp];
+            if (maxX[i] < qx0 || minX[i] > qx1 || maxY[i] < qy0 || minY[i] > qy1) continue;
+            if (count[i] == 0) {
+                stack[sp++] = right[i];
+                stack[sp++] = i + 1;
+                continue;
+            }
+            for (int p = start[i], end = p + count[i]; p < end; p++) {
+                if (type[p] == SEGMENT) segment(m, p, px, py, r);
+                else bumper(m, p, r);
+            }
+        }
+    }
+
+    private void segment(HolenGame.Marble m, int p, double px, double py, double r) {
+        double dx = ux[p], dy = uy[p];
+        double wx = -dy, wy = dx;                               // unit normal
+        double s0 = (px - ax[p]) * wx + (py - ay[p]) * wy;
+        if (s0 < 0) { wx = -wx; wy = -wy; s0 = -s0; }           // normal toward the side the move started on
+        double s1 = (m.x - ax[p]) * wx + (m.y - ay[p]) * wy;
+        if (s0 >= r && s1 < r) {
+            // swept: the move entered the band around the line; hit where it did, if within the segment
+            double t = (s0 - r) / (s0 - s1);
+            double hx = px + (m.x - px) * t, hy = py + (m.y - py) * t;
+            double u = (hx - ax[p]) * dx + (hy - ay[p]) * dy;
+            if (u >= 0 && u <= len[p]) {
+                m.x = hx;
+                m.y = hy;
+                reflect(m, wx, wy, restitution[p]);
+                return;
+            }
+        }
+        // overlap with the closest point (resting contact, slow approach, end caps)
+        double u = Math.max(0, Math.min(len[p], (m.x - ax[p]) * dx + (m.y - ay[p]) * dy));
+        double cx = ax[p] + dx * u, cy = ay[p] + dy * u;
+        double ox = m.x - cx, oy = m.y - cy;
+        double d = Math.hypot(ox, oy);
+        if (d >= r) return;
+        double nx = wx, ny = wy;
+        if (d > 1e-9) { nx = ox / d; ny = oy / d; }
+        m.x = cx + nx * r;
+        m.y = cy + ny * r;
+        reflect(m, nx, ny, restitution[p]);
+    }
+
+    private void bumper(HolenGame.Marble m, int p, double r) {
+        double ox = m.x - ax[p], oy = m.y - ay[p];
+        double reach = r + len[p];
+        double d = Math.hypot(ox, oy);
+        if (d >= reach) return;
+        double nx = 1, ny = 0;
+        if (d > 1e-9) { nx = ox / d; ny = oy / d; }
+        m.x = ax[p] + nx * reach;
+        m.y = ay[p] + ny * reach;
+        reflect(m, nx, ny, restitution[p]);
+        double s = Math.hypot(m.vx, m.vy);
+        if (s > MAX_SPEED) { m.vx *= MAX_SPEED / s; m.vy *= MAX_SPEED / s; }
+    }
+
+    private static void reflect(HolenGame.Marble m, double nx, double ny, double e) {
+        double vn = m.vx * nx + m.vy * ny;
+        if (vn >= 0) return;
+        m.vx -= (1 + e) * vn * nx;
+        m.vy -= (1 + e) * vn * ny;
+    }
+
+    /** True if a disc of radius r at (x, y) overlaps any obstacle; used by the simple aim preview. */
+    boolean overlaps(double x, double y, double r) {
+        int[] stack = new int[MAX_DEPTH];
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int i = stack[--sp];
+            if (maxX[i] < x - r || minX[i] > x + r || maxY[i] < y - r || minY[i] > y + r) continue;
+            if (count[i] == 0) {
+                stack[sp++] = right[i];
+                stack[sp++] = i + 1;
+                continue;
+            }
+            for (int p = start[i], end = p + count[i]; p < end; p++) {
+                if (type[p] == BUMPER) {
+                    if (Math.hypot(x - ax[p], y - ay[p]) < r + len[p]) return true;
+                    continue;
+                }
+                double u = Math.max(0, Math.min(len[p], (x - ax[p]) * ux[p] + (y - ay[p]) * uy[p]));
+                if (Math.hypot(x - ax[p] - ux[p] * u, y - ay[p] - uy[p] * u) < r) return true;
+            }
+        }
+        return false;
+    }
+
+    // ---------- compiled form ----------
+
+    int encodedSize() { return encodedSize(nodes); }
+
+    private int encodedSize(int nodes) {
+        int size = 12 + type.length * (1 + 8 * 8 + 4) + nodes * (4 * 8 + 3 * 4);
+        for (float[] o : outlines) size += 4 + o.length * 4;
+        return size;
+    }
+
+    /**
+     * Layout: primitive count, node count, outline count ints; primitives (type byte, ax, ay, bx,
+     * by, ux, uy, len, restitution doubles, polygon int); nodes (min/max x/y doubles, right, start,
+     * count ints); outlines (point count int, x/y floats).
+     */
+    void encode(ByteBuffer buf) { encode(buf, nodes); }
+
+    private void encode(ByteBuffer buf, int nodes) {
+        int n = type.length;
+        buf.putInt(n).putInt(nodes).putInt(outlines.length);
+        for (int p = 0; p < n; p++) {
+            buf.put(type[p]).putDouble(ax[p]).putDouble(ay[p]).putDouble(bx[p]).putDouble(by[p])
+                    .putDouble(ux[p]).putDouble(uy[p]).putDouble(len[p]).putDouble(restitution[p]).putInt(polygon[p]);
+        }
+        for (int i = 0; i < nodes; i++) {
+            buf.putDouble(minX[i]).putDouble(minY[i]).putDouble(maxX[i]).putDouble(maxY[i]).putInt(right[i]).putInt(start[i]).putInt(count[i]);
+        }
+        for (float[] o : outlines) {
+            buf.putInt(o.length / 2);
+            for (float v : o) buf.putFloat(v);
+        }
+    }
+
+    /** Reads what {@link #encode} wrote; no parsing or tree building. */
+    static Obstacles decode(ByteBuffer buf) {
+        int from = buf.position();
+        int n = buf.getInt(), nodes = buf.getInt();
+        float[][] outlines = new float[buf.getInt()][];
+        Obstacles o = new Obstacles(n, nodes, outlines);
+        for (int p = 0; p < n; p++) {
+            o.type[p] = buf.get();
+            o.ax[p] = buf.getDouble(); o.ay[p] = buf.getDouble(); o.bx[p] = buf.getDouble(); o.by[p] = buf.getDouble();
+            o.ux[p] = buf.getDouble(); o.uy[p] = buf.getDouble(); o.len[p] = buf.getDouble();
+            o.restitution[p] = buf.getDouble();
+            o.polygon[p] = buf.getInt();
+        }
+        for (int i = 0; i < nodes; i++) {
+            o.minX[i] = buf.getDouble(); o.minY[i] = buf.getDouble(); o.maxX[i] = buf.getDouble(); o.maxY[i] = buf.getDouble();
+            o.right[i] = buf.getInt(); o.start[i] = buf.getInt(); o.count[i] = buf.getInt();
+        }
+        for (int k = 0; k < outlines.length; k++) {
+            float[] pts = new float[2 * buf.getInt()];
+            for (int i = 0; i < pts.length; i++) pts[i] = buf.getFloat();
+            outlines[k] = pts;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().position(from).limit(buf.position()));
+        return new Obstacles(o, nodes, crc.getValue());
+    }
+}
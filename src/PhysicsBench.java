@@ -0,0 +1,65 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Scaling benchmark for {@link TileSolver}.
+ *
+ *   java PhysicsBench [marbles] [steps] [maxThreads]
+ *
+ * Builds a sandbox arena filled with moving marbles on a jittered lattice, then runs the same
+ * scene with the serial step and with the tile solver at 1, 2, 4 ... maxThreads threads.
+ * Prints ms/step, speed-up over one thread and a state checksum that must match for every
+ * thread count.
+ */
+final class PhysicsBench {
+    public static void main(String[] args) {
+        int marbles = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("marbles=%d steps=%d cores=%d%n", marbles, steps, Runtime.getRuntime().availableProcessors());
+        if (marbles <= 4000) run("serial", marbles, steps, null, 0);
+        try (TileSolver warm = new TileSolver(1)) {
+            run("(warm-up)", marbles, steps / 2, warm, 0); // let the JIT settle before measuring
+        }
+        double base = 0;
+        for (int t = 1; t <= maxThreads; t = t < maxThreads && t * 2 > maxThreads ? maxThreads : t * 2) {
+            try (TileSolver solver = new TileSolver(t)) {
+                double ms = run(t + " thread(s)", marbles, steps, solver, base);
+                if (t == 1) base = ms;
+            }
+        }
+    }
+
+    static HolenGame.Game sandbox(int marbles, long seed) {
+        int side = (int) Math.ceil(Math.sqrt(marbles * 1.5));
+        double spacing = 30;
+        HolenGame.Arena arena = new HolenGame.Arena(side * spacing, side * spacing / 1.5);
+        arena.rings.add(new HolenGame.CircleField(arena.width / 2, arena.height / 2, arena.height / 3));
+        HolenGame.Game g = new HolenGame.Game(HolenGame.GameMode.PVP, HolenGame.BotDifficulty.NORMAL, arena, seed);
+        HolenGame.Rng rng = g.rng;
+        for (int i = 0; i < marbles; i++) {
+            double x = spacing / 2 + (i % side) * spacing + (rng.nextDouble() - 0.5) * 8;
+            double y = spacing / 2 + (i / side) * spacing + (rng.nextDouble() - 0.5) * 8;
+            HolenGame.Marble m = new HolenGame.Marble(x, y, null, arena.insideAny(x, y));
+            m.vx = (rng.nextDouble() - 0.5) * 6;
+            m.vy = (rng.nextDouble() - 0.5) * 6;
+            g.marbles.add(m);
+        }
+        return g;
+    }
+
+    static double run(String label, int marbles, int steps, TileSolver solver, double base) {
+        HolenGame.Game g = sandbox(marbles, 7);
+        g.solver = solver;
+        int warmup = Math.min(20, steps / 4);
+        for (int i = 0; i < warmup; i++) g.step(1.0);
+        long t0 = System.nanoTime();
+        for (int i = warmup; i < steps; i++) g.step(1.0);
+        double ms = (System.nanoTime() - t0) / 1e6 / (steps - warmup);
+        ByteBuffer state = GameSave.encode(g);
+        System.out.printf("%-12s %8.3f ms/step %s checksum=%08x marbles=%d%n", label, ms,
+                base > 0 ? String.format("x%.2f", base / ms) : "     ", state.hashCode(), g.marbles.size());
+        if (solver != null) solver.pool.shutdown();
+        return ms;
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Input log of one game: the {@link GameSave} encoding of the starting state plus every shot and
+ * turn change with the tick it happened in. Physics is deterministic per tick, so replaying the log
+ * through {@link Playback} reproduces the game exactly.
+ *
+ * Layout (big-endian):
+ *   header : magic "HOLR", version short, tick count int, initial state length int, initial state
+ *   events : count int, then per event: tick int, type byte, and for SHOT: marble index int,
+ *            player index byte, fraction, vx, vy doubles
+ */
+final class Replay {
+    static final int MAGIC = 0x484F4C52; // "HOLR"
+    static final short VERSION = 1;
+    static final byte SHOT = 0, NEXT_TURN = 1;
+    static final Path DIR = Paths.get(System.getProperty("user.home"), ".holen", "replays");
+
+    final byte[] initial;
+    int ticks;
+
+    // events as parallel arrays, in recording order
+    int count;
+    int[] tick = new int[64];
+    byte[] type = new byte[64];
+    int[] marble = new int[64];
+    byte[] player = new byte[64];
+    double[] frac = new double[64];
+    double[] vx = new double[64];
+    double[] vy = new double[64];
+
+    Replay(byte[] initial) { this.initial = initial; }
+
+    /** Starts recording from the current state of g. */
+    static Replay start(HolenGame.Game g) {
+        ByteBuffer buf = GameSave.encode(g);
+        return new Replay(Arrays.copyOf(buf.array(), buf.limit()));
+    }
+
+    /** Records a shot applied at the given fraction of the current tick; call after the velocity is set. */
+    void shot(HolenGame.Game g, HolenGame.Marble m, double at) {
+        int i = add(SHOT);
+        marble[i] = g.marbles.indexOf(m);
+        player[i] = (byte) g.players.indexOf(m.lastTouchedBy);
+        frac[i] = at; vx[i] = m.vx; vy[i] = m.vy;
+    }
+
+    void nextTurn() { add(NEXT_TURN); }
+
+    void endTick() { ticks++; }
+
+    private int add(byte t) {
+        if (count == tick.length) {
+            int n = count * 2;
+            tick = Arrays.copyOf(tick, n); type = Arrays.copyOf(type, n);
+            marble = Arrays.copyOf(marble, n); player = Arrays.copyOf(player, n);
+            frac = Arrays.copyOf(frac, n); vx = Arrays.copyOf(vx, n); vy = Arrays.copyOf(vy, n);
+        }
+        tick[count] = ticks;
+        type[count] = t;
+        return count++;
+    }
+
+    ByteBuffer encode() {
+        ByteBuffer buf = ByteBuffer.allocate(18 + initial.length + count * 34);
+        buf.putInt(MAGIC).putShort(VERSION).putInt(ticks).putInt(initial.length).put(initial);
+        buf.putInt(count);
+        for (int i = 0; i < count; i++) {
+            buf.putInt(tick[i]).put(type[i]);
+            if (type[i] == SHOT) buf.putInt(marble[i]).put(player[i]).putDouble(frac[i]).putDouble(vx[i]).putDouble(vy[i]);
+        }
+        buf.flip();
+        return buf;
+    }
+
+    static Replay decode(ByteBuffer buf) throws IOException {
+        if (buf.getInt() != MAGIC) throw new IOException("not a Holen replay");
+        short version = buf.getShort();
+        if (version != VERSION) throw new IOException("unsupported replay version " + version);
+        int ticks = buf.getInt();
+        byte[] initial = new byte[buf.getInt()];
+        buf.get(initial);
+        Replay r = new Replay(initial);
+        int n = buf.getInt();
+        for (int k = 0; k < n; k++) {
+            r.ticks = buf.getInt();
+            int i = r.add(buf.get());
+            if (r.type[i] == SHOT) {
+                r.marble[i] = buf.getInt(); r.player[i] = buf.get();
+                r.frac[i] = buf.getDouble(); r.vx[i] = buf.getDouble(); r.vy[i] = buf.getDouble();
+            }
+        }
+        r.ticks = ticks;
+        return r;
+    }
+
+    static Replay read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size());
+            while (buf.hasRemaining() && ch.read(buf) >= 0) { }
+            buf.flip();
+            return decode(buf);
+        }
+    }
+
+    /** Re-simulates the log one tick at a time on a fresh copy of the initial state. */
+    final class Playback {
+        final HolenGame.Game game;
+        int t, e;
+
+        Playback() throws IOException {
+            game = GameSave.decode(ByteBuffer.wrap(initial));
+            game.solver = TileSolver.fromSystemProperty();
+        }
+
+        boolean done() { return t >= ticks; }
+
+        void tick() {
+            HolenGame.Game g = game;
+            double done = 0;
+            for (; e < count && tick[e] == t && type[e] == SHOT; e++) {
+                if (frac[e] > done) g.step(frac[e] - done);
+                done = frac[e];
+                HolenGame.Marble m = g.marbles.get(marble[e]);
+                if (player[e] >= 0) m.lastTouchedBy = g.players.get(player[e]);
+                if (m.owner != null) m.owner.useThrowable();
+                m.vx = vx[e]; m.vy = vy[e];
+            }
+            if (done < 1.0) g.step(1.0 - done);
+            for (; e < count && tick[e] == t && type[e] == NEXT_TURN; e++) g.nextTurn();
+            t++;
+        }
+    }
+}
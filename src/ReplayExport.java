@@ -0,0 +1,146 @@
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+
+/**
+ * Offline replay-to-video export.
+ *
+ *   java -Djava.awt.headless=true ReplayExport <replay.holr | save.bin> <outDir> [png|mjpeg] [threads]
+ *
+ * The simulation runs sequentially on the calling thread (it is deterministic and cheap); each tick
+ * is snapshotted with {@link GameSave#encode} and handed to a worker pool that decodes it, draws it
+ * offscreen with a per-thread {@link HolenGame.GameRenderer} and encodes the image. png writes
+ * frame_00000.png ...; mjpeg writes a single replay.mjpeg of concatenated JPEGs (ffmpeg -f mjpeg).
+ * A save file is played from its state until the board comes to rest.
+ *
+ * The work queue is bounded and the caller runs overflow tasks itself, so a fast simulation cannot
+ * queue up more than a few frames of snapshots ahead of the encoders.
+ */
+final class ReplayExport {
+    static final double FPS = 1000.0 / HolenGame.GameScreen.TICK_MS;
+    static final int MAX_WIDTH = 1280;
+    static final int MAX_REST_TICKS = 20000; // cap for save files that never settle
+
+    final int width, height;
+    final boolean mjpeg;
+    final Path out;
+    final HolenGame.Arena arena;
+    final ThreadLocal<Canvas> canvas = ThreadLocal.withInitial(Canvas::new);
+
+    /** Per-worker drawing state, reused for every frame the worker renders. */
+    final class Canvas {
+        final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final HolenGame.GameRenderer renderer = new HolenGame.GameRenderer();
+        final HolenGame.Camera camera = new HolenGame.Camera();
+        final ByteArrayOutputStream jpeg = new ByteArrayOutputStream(1 << 16);
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        final ImageWriteParam param = writer.getDefaultWriteParam();
+
+        Canvas() {
+            camera.reset(arena, width, height);
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.85f);
+        }
+    }
+
+    ReplayExport(HolenGame.Arena arena, Path out, boolean mjpeg) {
+        this.arena = arena;
+        this.out = out;
+        this.mjpeg = mjpeg;
+        this.width = (int) Math.min(MAX_WIDTH, arena.width);
+        this.height = (int) Math.round(width * arena.height / arena.width);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: ReplayExport <replay.holr | save.bin> <outDir> [png|mjpeg] [threads]");
+            System.exit(2);
+        }
+        Path in = Paths.get(args[0]);
+        Path outDir = Paths.get(args[1]);
+        boolean mjpeg = args.length > 2 && args[2].equalsIgnoreCase("mjpeg");
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        byte[] bytes = Files.readAllBytes(in);
+        boolean isReplay = bytes.length >= 4 && ByteBuffer.wrap(bytes).getInt() == Replay.MAGIC;
+        Replay replay = isReplay ? Replay.decode(ByteBuffer.wrap(bytes)) : new Replay(bytes);
+        Replay.Playback pb = replay.new Playback();
+        Files.createDirectories(outDir);
+
+        ReplayExport ex = new ReplayExport(pb.game.arena, outDir, mjpeg);
+        long t0 = System.nanoTime();
+        int frames = ex.run(pb, isReplay, threads);
+        double wall = (System.nanoTime() - t0) / 1e9;
+        double real = frames / FPS;
+        System.out.printf("%d frames %dx%d (%s, %d thread(s)) in %.2f s = %.1f fps; %.1f s of play, x%.1f real time%n",
+                frames, ex.width, ex.height, mjpeg ? "mjpeg" : "png", threads, wall, frames / wall, real, real / wall);
+        if (pb.game.solver != null) pb.game.solver.pool.shutdown();
+    }
+
+    /** Simulates and renders every tick; returns the number of frames written. */
+    int run(Replay.Playback pb, boolean isReplay, int threads) throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        // frames still being encoded, oldest first; the mjpeg stream is appended strictly in this order
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        int window = threads * 4;
+        int frame = 0;
+        try (OutputStream stream = mjpeg ? new BufferedOutputStream(Files.newOutputStream(out.resolve("replay.mjpeg"))) : null) {
+            while (true) {
+                ByteBuffer state = GameSave.encode(pb.game);
+                int index = frame++;
+                pending.add(pool.submit(() -> render(state, index)));
+                while (pending.size() > window) drain(pending.poll(), stream);
+
+                boolean more = isReplay ? !pb.done() : pb.game.moving() && pb.t < MAX_REST_TICKS;
+                if (!more) break;
+                pb.tick();
+            }
+            while (!pending.isEmpty()) drain(pending.poll(), stream);
+        } finally {
+            pool.shutdown();
+        }
+        return frame;
+    }
+
+    private static void drain(Future<byte[]> f, OutputStream stream) throws Exception {
+        byte[] jpeg = f.get();
+        if (stream != null) stream.write(jpeg);
+    }
+
+    /** Draws one snapshot; returns the JPEG bytes in mjpeg mode, otherwise writes the PNG and returns null. */
+    byte[] render(ByteBuffer state, int index) throws IOException {
+        HolenGame.Game game = GameSave.decode(state);
+        Canvas c = canvas.get();
+        Graphics2D g2 = c.img.createGraphics();
+        try {
+            g2.setColor(new Color(20, 20, 20));
+            g2.fillRect(0, 0, width, height);
+            c.camera.apply(g2);
+            c.renderer.drawBoard(g2, game, c.camera.viewport(width, height), HolenGame.RenderGovernor.Tier.HIGH);
+            g2.setTransform(new java.awt.geom.AffineTransform());
+            c.renderer.drawHud(g2, game, width, HolenGame.RenderGovernor.Tier.HIGH);
+        } finally {
+            g2.dispose();
+        }
+        if (!mjpeg) {
+            ImageIO.write(c.img, "png", out.resolve(String.format("frame_%05d.png", index)).toFile());
+            return null;
+        }
+        c.jpeg.reset();
+        try (MemoryCacheImageOutputStream ios = new MemoryCacheImageOutputStream(c.jpeg)) {
+            c.writer.setOutput(ios);
+            c.writer.write(null, new IIOImage(c.img, null, null), c.param);
+        }
+        return c.jpeg.toByteArray();
+    }
+}
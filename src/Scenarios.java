@@ -0,0 +1,400 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Macro benchmark: deterministic gameplay scenarios played through the full engine, with results
+ * kept in a history file and compared against a baseline.
+ *
+ *   java Scenarios [--render] [--runs N] [--label NAME] [--baseline NAME] [--history FILE] [scenario ...]
+ *
+ * Scenarios (all by default):
+ *   break8   standard table, 8 marbles in the circle, two autoplayed seats, a whole game
+ *   pile500  500 marbles packed in one circle on a large table, shots into the pile
+ *   hard6    one autoplayed seat against 6 HARD bots (shot search on a fresh shot cache)
+ *   preview  long drags: the predict preview refined within its frame budget while the aim sweeps,
+ *            then the shot released
+ *
+ * A frame is one loop tick (step plus, in the drag, the preview slice); --render also draws the
+ * board and HUD offscreen at 1024x720 as the game screen does, and records the scenario under
+ * "name+render". Every seat aims with the seeded game rng, so a run is the same game every time;
+ * the final state checksum is printed to show it.
+ *
+ * Per run: frame time p50/p95/p99 (us), turn resolution time (shot to rest, ms, mean), bytes
+ * allocated per frame on the engine thread, and bot think time (ms, mean, hard6 only). Every run is
+ * a fresh JVM (with this JVM's flags, so -Dholen.* settings carry over) that plays the scenario
+ * once untimed to warm up the JIT, then once measured; runs in one JVM share its JIT and heap
+ * layout and would understate the run-to-run spread the test relies on. Each run's values are appended to the history file (default
+ * ~/.holen/scenarios.csv, one line per label, scenario and metric). Against the baseline label (the
+ * oldest in the history unless --baseline is given) a metric regresses when Welch's t-test on the
+ * run values gives p < ALPHA and the median is worse by more than MIN_CHANGE. Exit code 1 if any
+ * metric regressed.
+ */
+final class Scenarios {
+    static final String[] ALL = {"break8", "pile500", "hard6", "preview"};
+    static final String[] METRICS = {"frameP50us", "frameP95us", "frameP99us", "turnMs", "allocBytesPerFrame", "thinkMs"};
+    static final double ALPHA = 0.01;
+    static final double MIN_CHANGE = 0.05;
+    static final int MAX_TURN_FRAMES = 20_000;  // a turn that does not settle by then is a bug
+    static final int DRAG_FRAMES = 40;          // frames a previewed drag is held
+    static final int WIDTH = 1024, HEIGHT = 720;
+
+    final String name;
+    final boolean render;
+    final long seed;
+
+    // per-run samples
+    long[] frames = new long[4096];
+    int frameCount;
+    final List<Long> turns = new ArrayList<>();
+    final List<Long> thinks = new ArrayList<>();
+    long allocated;
+    int checksum;
+
+    // offscreen target
+    final HolenGame.GameRenderer renderer = new HolenGame.GameRenderer();
+    final HolenGame.Camera camera = new HolenGame.Camera();
+    final BufferedImage img;
+    final Graphics2D g2;
+
+    Scenarios(String name, boolean render) {
+        this.name = name;
+        this.render = render;
+        this.seed = name.hashCode();
+        img = render ? new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB) : null;
+        g2 = render ? img.createGraphics() : null;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean render = false;
+        int runs = 5;
+        String label = null, baseline = null;
+        Path history = Paths.get(System.getProperty("user.home"), ".holen", "scenarios.csv");
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--render": render = true; break;
+                case "--runs": runs = Integer.parseInt(args[++i]); break;
+                case "--label": label = args[++i]; break;
+                case "--baseline": baseline = args[++i]; break;
+                case "--history": history = Paths.get(args[++i]); break;
+                case "--child": child(args[++i], render); return;
+                default:
+                    if (!Arrays.asList(ALL).contains(args[i])) throw new IllegalArgumentException("unknown scenario " + args[i]);
+                    names.add(args[i]);
+            }
+        }
+        if (names.isEmpty()) names.addAll(Arrays.asList(ALL));
+        if (label == null) label = "run-" + System.currentTimeMillis();
+
+        Map<String, double[][]> results = new LinkedHashMap<>();   // scenario -> metric -> run values
+        for (String n : names) {
+            String key = render ? n + "+render" : n;
+            double[][] values = new double[METRICS.length][runs];
+            String sum = null;
+            for (int r = 0; r < runs; r++) {
+                String[] out = fork(n, render);
+                for (int k = 0; k < METRICS.length; k++) values[k][r] = Double.parseDouble(out[k + 1]);
+                if (sum != null && !out[0].equals(sum)) System.err.println(key + ": run " + r + " diverged (checksum " + out[0] + ")");
+                sum = out[0];
+            }
+            System.out.printf("%-16s checksum=%s%n", key, sum);
+            results.put(key, values);
+        }
+
+        Map<String, Map<String, Map<String, double[]>>> past = readHistory(history);
+        if (baseline == null && !past.isEmpty()) baseline = past.keySet().iterator().next();
+        Map<String, Map<String, double[]>> base = baseline == null ? null : past.get(baseline);
+        if (baseline != null && base == null) System.err.println("baseline " + baseline + " not in " + history);
+
+        System.out.printf("%n%-16s %-20s %12s %12s %8s %8s%n", "scenario", "metric", "median", "baseline", "change", "p");
+        int regressions = 0;
+        for (Map.Entry<String, double[][]> e : results.entrySet()) {
+            for (int k = 0; k < METRICS.length; k++) {
+                double[] now = e.getValue()[k];
+                if (median(now) == 0 && k == METRICS.length - 1) continue;     // no bots, no think time
+                double[] then = base == null || !base.containsKey(e.getKey()) ? null : base.get(e.getKey()).get(METRICS[k]);
+                if (then == null) {
+                    System.out.printf("%-16s %-20s %12.1f%n", e.getKey(), METRICS[k], median(now));
+                    continue;
+                }
+                double change = median(then) == 0 ? 0 : median(now) / median(then) - 1;
+                double p = welch(now, then);
+                boolean regressed = p < ALPHA && change > MIN_CHANGE;
+                if (regressed) regressions++;
+                System.out.printf("%-16s %-20s %12.1f %12.1f %+7.1f%% %8.4f%s%n", e.getKey(), METRICS[k], median(now), median(then),
+                        change * 100, p, regressed ? "  REGRESSION" : "");
+            }
+        }
+        appendHistory(history, label, results);
+        System.out.printf("%nrecorded as %s in %s%s%n", label, history, baseline == null ? "" : ", compared with " + baseline);
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s)");
+            System.exit(1);
+        }
+    }
+
+    /** Runs one scenario in a fresh JVM (same flags and class path); returns checksum and metrics. */
+    static String[] fork(String name, boolean render) throws IOException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        cmd.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), "Scenarios"));
+        if (render) cmd.add("--render");
+        cmd.addAll(Arrays.asList("--child", name));
+        Process p = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String out = new String(p.getInputStream().readAllBytes()).trim();
+        try {
+            if (p.waitFor() != 0) throw new IOException(name + ": run failed with exit code " + p.exitValue());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        return out.split(" ");
+    }
+
+    /** Child side of {@link #fork}: one warm-up run, one measured run, printed on one line. */
+    static void child(String name, boolean render) {
+        new Scenarios(name, render).runOnce();
+        Scenarios s = new Scenarios(name, render);
+        s.runOnce();
+        StringJoiner line = new StringJoiner(" ");
+        line.add(String.format("%08x", s.checksum));
+        for (double v : s.metrics()) line.add(String.format(Locale.ROOT, "%.3f", v));
+        System.out.println(line);
+    }
+
+    // ---------- scenarios ----------
+
+    void runOnce() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long alloc0 = threads.getCurrentThreadAllocatedBytes();
+        HolenGame.Game g;
+        switch (name) {
+            case "break8":
+                g = new HolenGame.Game(HolenGame.GameMode.PVP, 2, 0, 5, 8, HolenGame.BotDifficulty.NORMAL, HolenGame.Arena.standard(), seed);
+                play(g, null, false);
+                break;
+            case "pile500":
+                g = pile(500);
+                play(g, null, false);
+                break;
+            case "hard6":
+                g = new HolenGame.Game(HolenGame.GameMode.PVB, 1, 6, 2, 8, HolenGame.BotDifficulty.HARD, HolenGame.Arena.large(), seed);
+                play(g, new BotSearch(new ShotCache(4096)), false);
+                break;
+            case "preview":
+                g = new HolenGame.Game(HolenGame.GameMode.PVP, 2, 0, 4, 12, HolenGame.BotDifficulty.NORMAL, HolenGame.Arena.standard(), seed);
+                play(g, null, true);
+                break;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+        allocated = threads.getCurrentThreadAllocatedBytes() - alloc0;
+        checksum = Arrays.hashCode(GameSave.encode(g).array());
+    }
+
+    /** 500 neutral marbles on a hexagonal lattice filling one circle of a large table, two seats. */
+    HolenGame.Game pile(int n) {
+        HolenGame.Arena a = new HolenGame.Arena(2048, 1320);
+        a.rings.add(new HolenGame.CircleField(1024, 560, 340));
+        a.spawnY = 1150;
+        HolenGame.Game g = new HolenGame.Game(HolenGame.GameMode.PVP, 2, 0, 3, 0, HolenGame.BotDifficulty.NORMAL, a, seed);
+        double s = 25;
+        List<double[]> lattice = new ArrayList<>();
+        for (int row = -15; row <= 15; row++)
+            for (int col = -15; col <= 15; col++) lattice.add(new double[] {col * s + (row & 1) * s / 2, row * s * 0.866});
+        lattice.sort(Comparator.comparingDouble((double[] p) -> Math.hypot(p[0], p[1])));
+        for (int i = 0; i < n; i++) g.marbles.add(new HolenGame.Marble(1024 + lattice.get(i)[0], 560 + lattice.get(i)[1], null, true));
+        g.grid.rebuild(g.marbles);
+        return g;
+    }
+
+    /**
+     * Plays the game to the end with the turn logic of GameServer: every seat shoots with the bot aim
+     * (HARD bots through the search), the board runs to rest, the turn passes.
+     */
+    void play(HolenGame.Game g, BotSearch search, boolean drag) {
+        ShotPreview preview = drag ? new ShotPreview() : null;
+        camera.reset(g.arena, WIDTH, HEIGHT);
+        while (!g.allGone()) {
+            HolenGame.Player p = g.getCurrentPlayer();
+            long shotStart = System.nanoTime();
+            if (drag && !(p instanceof HolenGame.BotPlayer)) dragShot(g, p, preview);
+            else shoot(g, p, search);
+            long turnStart = System.nanoTime();
+            if (search != null && p instanceof HolenGame.BotPlayer) thinks.add(turnStart - shotStart);
+            for (int f = 0; f < MAX_TURN_FRAMES; f++) {
+                frame(g, null, 0);
+                if (!g.moving()) break;
+            }
+            turns.add(System.nanoTime() - turnStart);
+            g.events.publish(HolenGame.EventBus.TURN_ENDED, null, null, p, 0, 0);
+            g.events.dispatch();
+            g.nextTurn();
+        }
+    }
+
+    void shoot(HolenGame.Game g, HolenGame.Player p, BotSearch search) {
+        HolenGame.Marble m = null;
+        if (search != null && p instanceof HolenGame.BotPlayer) {
+            m = search.plan(g, (HolenGame.BotPlayer) p);
+            if (m != null) {
+                m.lastTouchedBy = p;
+                p.useThrowable();
+            }
+        }
+        if (m == null) HolenGame.BotPlayer.shoot(g, p, p instanceof HolenGame.BotPlayer ? ((HolenGame.BotPlayer) p).accuracy : 0.65);
+    }
+
+    /** Holds a drag for DRAG_FRAMES with the aim sweeping, refining the preview each frame, then releases. */
+    void dragShot(HolenGame.Game g, HolenGame.Player p, ShotPreview preview) {
+        HolenGame.Marble m = null;
+        for (HolenGame.Marble x : g.marbles) if (x.owner == p && !x.moving()) { m = x; break; }
+        if (m == null) {
+            shoot(g, p, null);
+            return;
+        }
+        HolenGame.CircleField ring = g.arena.nearestRing(m.x, m.y);
+        double aim = Math.atan2(ring.cy - m.y, ring.cx - m.x);
+        double speed = 8 + g.rng.nextDouble() * 6;
+        double vx = 0, vy = 0;
+        for (int f = 0; f < DRAG_FRAMES; f++) {
+            double a = aim + 0.3 * Math.sin(f * 0.15);
+            vx = speed * Math.cos(a);
+            vy = speed * Math.sin(a);
+            preview.aim(g, m, vx, vy);
+            frame(g, preview, 3_000_000);
+        }
+        preview.clear();
+        m.vx = vx;
+        m.vy = vy;
+        m.lastTouchedBy = p;
+        p.useThrowable();
+    }
+
+    /** One loop tick: a physics step (or a preview slice while dragging), then the offscreen paint. */
+    void frame(HolenGame.Game g, ShotPreview preview, long previewBudget) {
+        long t0 = System.nanoTime();
+        if (preview != null) preview.advance(previewBudget);
+        else g.step(1.0);
+        if (render) {
+            g2.setColor(new Color(20, 20, 20));
+            g2.fillRect(0, 0, WIDTH, HEIGHT);
+            AffineTransform screen = g2.getTransform();
+            camera.apply(g2);
+            renderer.drawBoard(g2, g, camera.viewport(WIDTH, HEIGHT), HolenGame.RenderGovernor.Tier.HIGH);
+            g2.setTransform(screen);
+            renderer.drawHud(g2, g, WIDTH, HolenGame.RenderGovernor.Tier.HIGH);
+        }
+        if (frameCount == frames.length) frames = Arrays.copyOf(frames, frameCount * 2);
+        frames[frameCount++] = System.nanoTime() - t0;
+    }
+
+    /** frameP50us, frameP95us, frameP99us, turnMs, allocBytesPerFrame, thinkMs. */
+    double[] metrics() {
+        long[] f = Arrays.copyOf(frames, frameCount);
+        Arrays.sort(f);
+        return new double[] {
+                f[(int) (f.length * 0.50)] / 1e3, f[(int) (f.length * 0.95)] / 1e3, f[(int) (f.length * 0.99)] / 1e3,
+                turns.stream().mapToLong(Long::longValue).average().orElse(0) / 1e6,
+                (double) allocated / frameCount,
+                thinks.stream().mapToLong(Long::longValue).average().orElse(0) / 1e6};
+    }
+
+    // ---------- history and statistics ----------
+
+    /** label -> scenario -> metric -> run values, labels in file order. */
+    static Map<String, Map<String, Map<String, double[]>>> readHistory(Path file) throws IOException {
+        Map<String, Map<String, Map<String, double[]>>> h = new LinkedHashMap<>();
+        if (!Files.isRegularFile(file)) return h;
+        for (String line : Files.readAllLines(file)) {
+            String[] c = line.split(",");
+            if (c.length != 5 || c[0].equals("label")) continue;
+            double[] v = Arrays.stream(c[4].split(";")).mapToDouble(Double::parseDouble).toArray();
+            h.computeIfAbsent(c[0], k -> new LinkedHashMap<>()).computeIfAbsent(c[2], k -> new LinkedHashMap<>()).put(c[3], v);
+        }
+        return h;
+    }
+
+    /** label, epoch millis, scenario, metric, run values joined by ';'. */
+    static void appendHistory(Path file, String label, Map<String, double[][]> results) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        if (!Files.isRegularFile(file)) sb.append("label,time,scenario,metric,values\n");
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, double[][]> e : results.entrySet()) {
+            for (int k = 0; k < METRICS.length; k++) {
+                StringJoiner v = new StringJoiner(";");
+                for (double x : e.getValue()[k]) v.add(String.format(Locale.ROOT, "%.3f", x));
+                sb.append(label).append(',').append(now).append(',').append(e.getKey()).append(',').append(METRICS[k]).append(',').append(v).append('\n');
+            }
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.writeString(file, sb, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    static double median(double[] v) {
+        double[] s = v.clone();
+        Arrays.sort(s);
+        return s.length % 2 == 1 ? s[s.length / 2] : (s[s.length / 2 - 1] + s[s.length / 2]) / 2;
+    }
+
+    /** One-sided p-value of Welch's t-test that a's mean is above b's. */
+    static double welch(double[] a, double[] b) {
+        if (a.length < 2 || b.length < 2) return 1;
+        double ma = Arrays.stream(a).average().orElse(0), mb = Arrays.stream(b).average().orElse(0);
+        double va = variance(a, ma) / a.length, vb = variance(b, mb) / b.length;
+        if (va + vb == 0) return ma > mb ? 0 : 1;
+        double t = (ma - mb) / Math.sqrt(va + vb);
+        double df = (va + vb) * (va + vb) / (va * va / (a.length - 1) + vb * vb / (b.length - 1));
+        // P(T > t) for Student's t with df degrees of freedom
+        double tail = 0.5 * incompleteBeta(df / 2, 0.5, df / (df + t * t));
+        return t > 0 ? tail : 1 - tail;
+    }
+
+    static double variance(double[] v, double mean) {
+        double s = 0;
+        for (double x : v) s += (x - mean) * (x - mean);
+        return s / (v.length - 1);
+    }
+
+    /** Regularized incomplete beta I_x(a, b), by its continued fraction (Lentz). */
+    static double incompleteBeta(double a, double b, double x) {
+        if (x <= 0) return 0;
+        if (x >= 1) return 1;
+        if (x > (a + 1) / (a + b + 2)) return 1 - incompleteBeta(b, a, 1 - x);
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x)) / a;
+        double c = 1, d = 1 - (a + b) * x / (a + 1);
+        d = 1 / (Math.abs(d) < 1e-30 ? 1e-30 : d);
+        double f = d;
+        for (int m = 1; m <= 200; m++) {
+            for (int odd = 0; odd < 2; odd++) {
+                double num = odd == 0
+                        ? m * (b - m) * x / ((a + 2 * m - 1) * (a + 2 * m))
+                        : -(a + m) * (a + b + m) * x / ((a + 2 * m) * (a + 2 * m + 1));
+                d = 1 + num * d;
+                d = 1 / (Math.abs(d) < 1e-30 ? 1e-30 : d);
+                c = 1 + num / c;
+                if (Math.abs(c) < 1e-30) c = 1e-30;
+                f *= c * d;
+            }
+            if (Math.abs(c * d - 1) < 1e-12) break;
+        }
+        return front * f;
+    }
+
+    /** Lanczos approximation of ln Gamma(x), x > 0. */
+    static double logGamma(double x) {
+        double[] g = {76.18009172947146, -86.50532032941677, 24.01409824083091, -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = x, tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double ser = 1.000000000190015;
+        for (double c : g) ser += c / ++y;
+        return -tmp + Math.log(2.5066282746310005 * ser / x);
+    }
+}
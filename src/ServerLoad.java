@@ -0,0 +1,50 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load generator for {@link GameServer}.
+ *
+ *   java ServerLoad [rooms] [seconds] [workers] [bots]
+ *
+ * Opens the given number of autoplay rooms (every seat played with the bot aim) and replaces each
+ * finished game with a new one, so the room count stays constant. Prints one line per second:
+ * rooms in play and how many are active, ticks/s, p50/p99/max tick latency, skipped pulses,
+ * budget overruns, deferred pulses and finished games, followed by a summary for the whole run.
+ */
+final class ServerLoad {
+    public static void main(String[] args) throws InterruptedException {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int bots = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+
+        System.out.printf("rooms=%d seconds=%d workers=%d bots/room=%d cores=%d%n", rooms, seconds, workers, bots,
+                Runtime.getRuntime().availableProcessors());
+        try (GameServer server = new GameServer(workers)) {
+            server.onFinish = r -> server.open(newGame(bots), true);
+            for (int i = 0; i < rooms; i++) server.open(newGame(bots), true);
+
+            long[] total = new long[server.latency.counts.length()];
+            long ticks0 = 0, t0 = System.nanoTime();
+            for (int s = 1; s <= seconds; s++) {
+                Thread.sleep(1000);
+                long[] c = server.latency.drain();
+                for (int i = 0; i < c.length; i++) total[i] += c[i];
+                long ticks = server.ticks.sum();
+                System.out.printf("%3ds rooms %5d active %5d  %7d ticks/s  p50 %6.2f ms  p99 %6.2f ms  max %7.2f ms  skipped %d  overruns %d  deferred %d  finished %d%n",
+                        s, server.rooms.size(), server.active.size(), ticks - ticks0,
+                        GameServer.Histogram.percentile(c, 0.5) / 1e3, GameServer.Histogram.percentile(c, 0.99) / 1e3,
+                        GameServer.Histogram.percentile(c, 1.0) / 1e3, server.skipped.sum(), server.overruns.sum(), server.deferred.sum(), server.finished.sum());
+                ticks0 = ticks;
+            }
+            double secs = (System.nanoTime() - t0) / 1e9;
+            System.out.printf("total: %.0f ticks/s  p99 %.2f ms  skipped %d  overruns %d  deferred %d  rejected %d  finished %d%n",
+                    server.ticks.sum() / secs, GameServer.Histogram.percentile(total, 0.99) / 1e3,
+                    server.skipped.sum(), server.overruns.sum(), server.deferred.sum(), server.rejected.sum(), server.finished.sum());
+        }
+    }
+
+    static HolenGame.Game newGame(int bots) {
+        return new HolenGame.Game(HolenGame.GameMode.PVB, 1, bots, 5, 8, HolenGame.BotDifficulty.NORMAL,
+                HolenGame.Arena.standard(), ThreadLocalRandom.current().nextLong());
+    }
+}
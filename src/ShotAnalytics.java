@@ -0,0 +1,84 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+/**
+ * Running aggregates over all logged shots: angle and force histograms and a heatmap of shot
+ * origins. The heatmap divides the arena, whatever its size, into COLS x ROWS cells, so shots from
+ * every arena land in the same grid at their relative position. Every {@link #add} is O(1),
+ * including the heatmap image, where only the shot's cell pixel is recoloured, so the overlay never
+ * rescans history.
+ *
+ * A shot counts as a success when it knocked at least one marble out of a circle.
+ */
+final class ShotAnalytics {
+    static final int ANGLE_BINS = 36;           // 10 degrees each
+    static final int FORCE_BINS = 24;
+    static final double MAX_FORCE = 24.0;
+    static final int COLS = 64, ROWS = 43;      // about 16 px cells on the standard table
+
+    long shots, successes, knocked;
+    final long[] angleShots = new long[ANGLE_BINS], angleHits = new long[ANGLE_BINS];
+    final long[] forceShots = new long[FORCE_BINS], forceHits = new long[FORCE_BINS];
+    final int[] cellShots = new int[COLS * ROWS], cellHits = new int[COLS * ROWS];
+    long maxAngleShots, maxForceShots;
+    /** One pixel per cell; draw it scaled to the arena's width and height. */
+    final BufferedImage heat = new BufferedImage(COLS, ROWS, BufferedImage.TYPE_INT_ARGB);
+
+    /** A shot from (x, y) on an arena of the given size. */
+    void add(double x, double y, double width, double height, double angle, double force, int k) {
+        boolean hit = k > 0;
+        shots++;
+        knocked += k;
+        if (hit) successes++;
+
+        int a = Math.floorMod((int) Math.floor((angle + Math.PI) / (2 * Math.PI) * ANGLE_BINS), ANGLE_BINS);
+        angleShots[a]++;
+        if (hit) angleHits[a]++;
+        maxAngleShots = Math.max(maxAngleShots, angleShots[a]);
+
+        int f = (int) Math.max(0, Math.min(FORCE_BINS - 1, force / MAX_FORCE * FORCE_BINS));
+        forceShots[f]++;
+        if (hit) forceHits[f]++;
+        maxForceShots = Math.max(maxForceShots, forceShots[f]);
+
+        int col = (int) Math.floor(x / width * COLS), row = (int) Math.floor(y / height * ROWS);
+        if (col < 0 || row < 0 || col >= COLS || row >= ROWS) return;
+        int c = row * COLS + col;
+        cellShots[c]++;
+        if (hit) cellHits[c]++;
+        heat.setRGB(col, row, cellColor(cellShots[c], cellHits[c]));
+    }
+
+    /** Hue from red (never works) to green (always works); opacity grows with the log of the shot count. */
+    static int cellColor(int n, int hits) {
+        float rate = hits / (float) n;
+        int alpha = (int) Math.min(200, 50 + 30 * (Math.log(n) / Math.log(2)));
+        int rgb = Color.HSBtoRGB(rate / 3f, 0.9f, 1f) & 0xFFFFFF;
+        return alpha << 24 | rgb;
+    }
+
+    /** Adds another set of aggregates to this one (the history loaded while this one was collecting). */
+    void merge(ShotAnalytics o) {
+        shots += o.shots;
+        successes += o.successes;
+        knocked += o.knocked;
+        for (int i = 0; i < ANGLE_BINS; i++) {
+            angleShots[i] += o.angleShots[i];
+            angleHits[i] += o.angleHits[i];
+            maxAngleShots = Math.max(maxAngleShots, angleShots[i]);
+        }
+        for (int i = 0; i < FORCE_BINS; i++) {
+            forceShots[i] += o.forceShots[i];
+            forceHits[i] += o.forceHits[i];
+            maxForceShots = Math.max(maxForceShots, forceShots[i]);
+        }
+        for (int c = 0; c < COLS * ROWS; c++) {
+            if (o.cellShots[c] == 0) continue;
+            cellShots[c] += o.cellShots[c];
+            cellHits[c] += o.cellHits[c];
+            heat.setRGB(c % COLS, c / COLS, cellColor(cellShots[c], cellHits[c]));
+        }
+    }
+
+    double successRate() { return shots == 0 ? 0 : successes / (double) shots; }
+}
@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache from a resting board to the best shots a bot search found on it.
+ *
+ * The key hashes every marble's position quantized to {@link #QUANTUM} px together with its owner
+ * and inside flag, plus whose turn it is. Per-marble hashes are summed, so the list order of the
+ * marbles does not matter and a board that differs only by sub-quantum drift maps to the same key.
+ * Shots are stored by the shooter's position rather than its list index for the same reason.
+ * The arena's obstacle hash is mixed in, so arenas that differ only in their walls do not share entries.
+ *
+ * Persistence (big-endian): magic "HOLC", version short, count int, then per entry in LRU order:
+ * key long, shot count byte, and per shot x, y, vx, vy, score doubles.
+ */
+final class ShotCache {
+    static final int MAGIC = 0x484F4C43; // "HOLC"
+    static final short VERSION = 1;
+    static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".holen", "shotcache.bin");
+    static final double QUANTUM = 4.0;
+    static final int TOP = 3;                                   // shots kept per board
+    static final int ENTRY_BYTES = 32 + 48 + 16 + TOP * 4 + TOP * 56; // key, map entry, array, shots (approx.)
+
+    static final class Shot {
+        final double x, y, vx, vy, score;
+        Shot(double x, double y, double vx, double vy, double score) {
+            this.x = x; this.y = y; this.vx = vx; this.vy = vy; this.score = score;
+        }
+    }
+
+    final int capacity;
+    private final LinkedHashMap<Long, Shot[]> map;
+    long hits, misses;
+
+    ShotCache(int capacity) {
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<Long, Shot[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Shot[]> eldest) { return size() > ShotCache.this.capacity; }
+        };
+    }
+
+    static long key(HolenGame.Game g) {
+        long sum = mix(g.turnIndex + 1L) ^ mix(Double.doubleToLongBits(g.arena.width) + g.arena.rings.size());
+        if (g.arena.obstacles != null) sum ^= mix(g.arena.obstacles.hash);
+        for (HolenGame.Marble m : g.marbles) {
+            long qx = (long) Math.floor(m.x / QUANTUM) & 0xFFFFF;
+            long qy = (long) Math.floor(m.y / QUANTUM) & 0xFFFFF;
+            long owner = m.owner == null ? 0 : g.players.indexOf(m.owner) + 1;
+            sum += mix(qx | qy << 20 | owner << 40 | (m.insideCircle ? 1L << 48 : 0));
+        }
+        return sum;
+    }
+
+    /** SplitMix64 finalizer. */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Best shots for the board, best first, or null on a miss. */
+    Shot[] get(long key) {
+        Shot[] s = map.get(key);
+        if (s != null) hits++; else misses++;
+        return s;
+    }
+
+    void put(long key, Shot[] shots) { map.put(key, shots); }
+
+    int size() { return map.size(); }
+
+    double hitRate() { return hits + misses == 0 ? 0 : hits / (double) (hits + misses); }
+
+    /** Rough heap footprint of the entries. */
+    long memoryBytes() { return (long) map.size() * ENTRY_BYTES; }
+
+    ByteBuffer encode() {
+        ByteBuffer buf = ByteBuffer.allocate(10 + map.size() * (9 + TOP * 40));
+        buf.putInt(MAGIC).putShort(VERSION).putInt(map.size());
+        for (Map.Entry<Long, Shot[]> e : map.entrySet()) {
+            Shot[] shots = e.getValue();
+            buf.putLong(e.getKey()).put((byte) shots.length);
+            for (Shot s : shots) buf.putDouble(s.x).putDouble(s.y).putDouble(s.vx).putDouble(s.vy).putDouble(s.score);
+        }
+        buf.flip();
+        return buf;
+    }
+
+    static ShotCache decode(ByteBuffer buf, int capacity) throws IOException {
+        if (buf.getInt() != MAGIC) throw new IOException("not a shot cache");
+        short version = buf.getShort();
+        if (version != VERSION) throw new IOException("unsupported shot cache version " + version);
+        ShotCache c = new ShotCache(capacity);
+        int n = buf.getInt();
+        for (int i = 0; i < n; i++) {
+            long key = buf.getLong();
+            Shot[] shots = new Shot[buf.get()];
+            for (int k = 0; k < shots.length; k++) shots[k] = new Shot(buf.getDouble(), buf.getDouble(), buf.getDouble(), buf.getDouble(), buf.getDouble());
+            c.map.put(key, shots);
+        }
+        return c;
+    }
+
+    /** Loads the cache from file, starting empty if it is missing or unreadable. */
+    static ShotCache load(Path file, int capacity) {
+        if (!Files.isRegularFile(file)) return new ShotCache(capacity);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size());
+            while (buf.hasRemaining() && ch.read(buf) >= 0) { }
+            buf.flip();
+            return decode(buf, capacity);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("shot cache ignored: " + e);
+            return new ShotCache(capacity);
+        }
+    }
+}
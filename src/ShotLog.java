@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Append-only columnar log of every shot, for balancing force, field size and spawn spacing.
+ *
+ * Shots are buffered in memory by column and written as blocks of up to {@link #BLOCK} rows, each
+ * block storing one column after another, so a scan that needs one column reads it contiguously.
+ * Values are quantized to 16 bits where that loses nothing that matters at play scale.
+ *
+ * Layout (big-endian):
+ *   header : magic "HOLS" int, version short
+ *   block  : rows short, then columns of that many values:
+ *            x, y short (arena px), angle short (radians * ANGLE_SCALE), force short (force * 1000),
+ *            [width, height short (arena px)], knocked byte (marbles the shot knocked out of a circle),
+ *            seat byte (player index), difficulty byte (bot difficulty ordinal, -1 = human)
+ *
+ * Blocks with the arena size columns store their row count negated (version 2 on). Version 1 files
+ * have no size; their rows are read as shots on the standard table, and later blocks are appended to
+ * them in the new form, which a version 1 reader stops at.
+ */
+final class ShotLog {
+    static final int MAGIC = 0x484F4C53; // "HOLS"
+    static final short VERSION = 2;
+    static final int BLOCK = 256;
+    static final int ROW_BYTES = 6 * 2 + 3, V1_ROW_BYTES = 4 * 2 + 3;
+    static final double V1_WIDTH = 1024, V1_HEIGHT = 690;   // standard table
+    static final double ANGLE_SCALE = 32767 / Math.PI;
+    static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".holen", "shots.col");
+
+    final short[] x = new short[BLOCK], y = new short[BLOCK], angle = new short[BLOCK], force = new short[BLOCK];
+    final short[] width = new short[BLOCK], height = new short[BLOCK];
+    final byte[] knocked = new byte[BLOCK], seat = new byte[BLOCK], difficulty = new byte[BLOCK];
+    int rows;
+
+    /** Buffers one shot; returns true once the block is full and should be written. */
+    boolean append(double sx, double sy, double a, double f, double w, double h, int k, int seatIndex, int diff) {
+        x[rows] = clamp(Math.round(sx));
+        y[rows] = clamp(Math.round(sy));
+        angle[rows] = clamp(Math.round(a * ANGLE_SCALE));
+        force[rows] = clamp(Math.round(f * 1000));
+        width[rows] = clamp(Math.round(w));
+        height[rows] = clamp(Math.round(h));
+        knocked[rows] = (byte) Math.min(127, k);
+        seat[rows] = (byte) seatIndex;
+        difficulty[rows] = (byte) diff;
+        return ++rows == BLOCK;
+    }
+
+    private static short clamp(long v) { return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, v)); }
+
+    /** Encodes the buffered rows as one block and empties the buffer; null if there is nothing to write. */
+    ByteBuffer drain() {
+        if (rows == 0) return null;
+        ByteBuffer buf = ByteBuffer.allocate(2 + rows * ROW_BYTES);
+        buf.putShort((short) -rows);
+        for (short[] col : new short[][] {x, y, angle, force, width, height}) for (int i = 0; i < rows; i++) buf.putShort(col[i]);
+        buf.put(knocked, 0, rows).put(seat, 0, rows).put(difficulty, 0, rows);
+        buf.flip();
+        rows = 0;
+        return buf;
+    }
+
+    /** Appends a block to the file, writing the header first if the file is new. */
+    static void write(Path file, ByteBuffer block) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            if (ch.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(6).putInt(MAGIC).putShort(VERSION);
+                header.flip();
+                while (header.hasRemaining()) ch.write(header);
+            }
+            while (block.hasRemaining()) ch.write(block);
+        }
+    }
+
+    /**
+     * Replays every logged shot into the aggregates and returns the number of rows. A torn last
+     * block (crash during a write) is ignored.
+     */
+    static long scan(Path file, ShotAnalytics into) throws IOException {
+        if (!Files.isRegularFile(file)) return 0;
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.remaining() < 6 || buf.getInt() != MAGIC) throw new IOException("not a Holen shot log");
+        short version = buf.getShort();
+        if (version < 1 || version > VERSION) throw new IOException("unsupported shot log version " + version);
+        long total = 0;
+        short[] sx = new short[BLOCK], sy = new short[BLOCK], sa = new short[BLOCK], sf = new short[BLOCK];
+        short[] sw = new short[BLOCK], sh = new short[BLOCK];
+        byte[] sk = new byte[BLOCK];
+        while (buf.remaining() >= 2) {
+            int n = buf.getShort();
+            boolean sized = n < 0;
+            if (sized) n = -n;
+            if (n == 0 || n > BLOCK || buf.remaining() < n * (sized ? ROW_BYTES : V1_ROW_BYTES)) break;
+            for (short[] col : new short[][] {sx, sy, sa, sf}) for (int i = 0; i < n; i++) col[i] = buf.getShort();
+            if (sized) {
+                for (short[] col : new short[][] {sw, sh}) for (int i = 0; i < n; i++) col[i] = buf.getShort();
+            }
+            buf.get(sk, 0, n);
+            buf.position(buf.position() + 2 * n); // seat and difficulty are not aggregated
+            for (int i = 0; i < n; i++) {
+                double w = sized ? sw[i] : V1_WIDTH, h = sized ? sh[i] : V1_HEIGHT;
+                into.add(sx[i], sy[i], w, h, sa[i] / ANGLE_SCALE, sf[i] / 1000.0, sk[i]);
+            }
+            total += n;
+        }
+        return total;
+    }
+}
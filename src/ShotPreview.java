@@ -0,0 +1,160 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * "Predict" aim preview: the whole shot played forward with real collisions on a scratch copy of the
+ * board, recording the path of every marble it sets moving and which neutral marbles it knocks out
+ * of a circle.
+ *
+ * The simulation is incremental. {@link #aim} restarts it only when the aim moved by more than
+ * AIM_EPSILON, and {@link #advance} steps it until its time budget runs out, so a long shot is
+ * refined over several frames while the drag settles and a frame never pays for the whole shot.
+ * The board is encoded once per selected marble; the drag does not change it.
+ */
+final class ShotPreview {
+    static final int MAX_TICKS = 1500;
+    static final int SAMPLE = 2;                // record a path point every SAMPLE ticks
+    static final double AIM_EPSILON = 0.02;     // velocity change that restarts the simulation
+
+    private HolenGame.Game source;
+    private HolenGame.Marble sourceMarble;
+    private ByteBuffer base;
+
+    HolenGame.Game scratch;
+    int marble = -1;                            // index of the shooter in the board order
+    double vx, vy;
+    int ticks;
+    boolean done;
+    private long stepNanos;                     // smoothed cost of one scratch step
+
+    /** Marbles of the board in its original order, with their paths: x, y pairs, count in len. */
+    HolenGame.Marble[] start = new HolenGame.Marble[0];
+    float[][] path = new float[0][];
+    int[] len = new int[0];
+    /** Where each marble rested before the shot: x, y pairs in board order. */
+    float[] origin = new float[0];
+    /** Original indices of neutral marbles this shot knocks out of a circle, exited[0..exits). */
+    int[] exited = new int[8];
+    int exits;
+
+    private final HolenGame.EventBus.Listener exitTracker = (type, a, b, p, x, y) -> {
+        if (type != HolenGame.EventBus.CIRCLE_EXIT || a.owner != null) return;
+        int i = indexOf(a);
+        if (i < 0) return;
+        if (exits == exited.length) exited = Arrays.copyOf(exited, exits * 2);
+        exited[exits++] = i;
+    };
+
+    /** Aims the preview at a shot of m with (vx, vy); restarts the simulation if the aim changed. */
+    void aim(HolenGame.Game g, HolenGame.Marble m, double svx, double svy) {
+        if (g != source || m != sourceMarble) {
+            source = g;
+            sourceMarble = m;
+            base = GameSave.encode(g);
+            marble = g.marbles.indexOf(m);
+            scratch = null;
+        }
+        if (scratch != null && Math.abs(svx - vx) < AIM_EPSILON && Math.abs(svy - vy) < AIM_EPSILON) return;
+        vx = svx;
+        vy = svy;
+        restart();
+    }
+
+    /** Forgets the board, e.g. when the shot is released or the selection dropped. */
+    void clear() {
+        source = null;
+        sourceMarble = null;
+        base = null;
+        scratch = null;
+        marble = -1;
+    }
+
+    boolean active() { return scratch != null; }
+
+    private void restart() {
+        try {
+            scratch = GameSave.decode(base.duplicate(), source.arena.obstacles);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        scratch.solver = source.solver;
+        scratch.events.listeners.add(exitTracker);
+        int n = scratch.marbles.size();
+        start = scratch.marbles.toArray(start.length >= n ? start : new HolenGame.Marble[n]);
+        if (path.length < n) {
+            path = Arrays.copyOf(path, n);
+            len = new int[n];
+            origin = new float[2 * n];
+        }
+        for (int i = 0; i < n; i++) {
+            if (path[i] == null) path[i] = new float[32];
+            len[i] = 0;
+            origin[2 * i] = (float) start[i].x;
+            origin[2 * i + 1] = (float) start[i].y;
+        }
+        exits = 0;
+        ticks = 0;
+        done = false;
+
+        HolenGame.Marble m = start[marble];
+        HolenGame.Player shooter = scratch.getCurrentPlayer();     // the scratch board's copy, so scores stay there
+        m.lastTouchedBy = shooter;
+        m.vx = vx;
+        m.vy = vy;
+        record(marble);
+    }
+
+    /**
+     * Simulates until the shot is at rest or MAX_TICKS, stopping early when another step would not
+     * fit in budgetNanos (at least one step always runs). Returns true when done.
+     */
+    boolean advance(long budgetNanos) {
+        if (scratch == null || done) return done;
+        long now = System.nanoTime(), deadline = now + budgetNanos;
+        do {
+            scratch.step(1.0);
+            ticks++;
+            long t = System.nanoTime();
+            stepNanos += (t - now - stepNanos) / 8;
+            now = t;
+            if (ticks % SAMPLE == 0) recordMoving();
+            if (!scratch.moving() || ticks >= MAX_TICKS) {
+                recordMoving();
+                done = true;
+                break;
+            }
+        } while (now + stepNanos < deadline);
+        return done;
+    }
+
+    private void recordMoving() {
+        for (int i = 0; i < start.length && start[i] != null; i++) {
+            HolenGame.Marble m = start[i];
+            if (len[i] > 0) {
+                record(i);
+            } else if (m.moving()) {
+                // first movement: the path starts where the marble rested
+                path[i][0] = origin[2 * i];
+                path[i][1] = origin[2 * i + 1];
+                len[i] = 2;
+                record(i);
+            }
+        }
+    }
+
+    private void record(int i) {
+        HolenGame.Marble m = start[i];
+        float[] p = path[i];
+        // a marble at rest since its last point adds nothing
+        if (len[i] >= 2 && p[len[i] - 2] == (float) m.x && p[len[i] - 1] == (float) m.y) return;
+        if (len[i] + 2 > p.length) path[i] = p = Arrays.copyOf(p, p.length * 2);
+        p[len[i]++] = (float) m.x;
+        p[len[i]++] = (float) m.y;
+    }
+
+    private int indexOf(HolenGame.Marble m) {
+        for (int i = 0; i < start.length && start[i] != null; i++) if (start[i] == m) return i;
+        return -1;
+    }
+}
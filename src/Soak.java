@@ -0,0 +1,222 @@
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowEvent;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javax.management.ObjectName;
+import javax.swing.*;
+
+/**
+ * Soak harness: plays thousands of consecutive games through the real UI and fails if resources
+ * grow. Needs a display; on a server run it under Xvfb:
+ *
+ *   xvfb-run -a java -cp out Soak [games] [sampleEvery] [warmup]
+ *
+ * Each game goes menu -> (difficulty) -> setup -> game -> result and back, mostly PvB with bots on
+ * INSTANT turbo, every fifth game PvP. Human turns are played with synthetic mouse press/drag/release
+ * on the game screen, some with the predict preview held for a few frames, and every 25th game opens
+ * and closes the how-to windows. Frames are driven from the EDT with STEPS loop ticks and one paint
+ * each; the loop's own timer keeps running alongside.
+ *
+ * Every sampleEvery games it forces a full GC (through a live class histogram) and prints heap after
+ * GC, live threads, live javax.swing.Timer instances, undisposed windows and the paint time p50/p95
+ * of the frames since the last sample. Against the sample taken after the warmup games it fails on:
+ * heap +20% plus 4 MB, threads +2, any extra Timer or window, paint p50 x1.5 plus 0.5 ms.
+ * Exit code 0 = pass, 1 = growth, 2 = no display, 3 = a game did not finish.
+ *
+ * user.home is pointed at a temp directory first, so autosaves, logs and caches do not touch ~/.holen.
+ */
+final class Soak {
+    static final int STEPS = 8;                 // loop ticks per driven frame
+    static final int MAX_FRAMES = 50_000;       // per game, well beyond any real game
+    static final int HOLD_FRAMES = 6;           // frames a previewed drag is held before release
+
+    final HolenGame h;
+    final Random rnd = new Random(1);
+    final List<Long> paintNanos = new ArrayList<>();
+
+    Soak(HolenGame h) { this.h = h; }
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int sampleEvery = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("soak needs a display; run it under xvfb-run");
+            System.exit(2);
+        }
+        System.setProperty("user.home", Files.createTempDirectory("holen-soak").toString());
+
+        HolenGame[] ui = new HolenGame[1];
+        SwingUtilities.invokeAndWait(() -> ui[0] = new HolenGame());
+        Soak soak = new Soak(ui[0]);
+
+        System.out.println("games,heapMB,threads,timers,windows,paintP50ms,paintP95ms");
+        long[] base = null;
+        List<String> failures = new ArrayList<>();
+        for (int g = 1; g <= games; g++) {
+            if (!soak.playOne(g)) {
+                System.err.println("game " + g + " did not finish in " + MAX_FRAMES + " frames");
+                System.exit(3);
+            }
+            if (g % sampleEvery != 0 && g != warmup) continue;
+            long[] s = soak.sample();
+            System.out.printf("%d,%.1f,%d,%d,%d,%.2f,%.2f%n", g, s[0] / 1048576.0, s[1], s[2], s[3], s[4] / 1e6, s[5] / 1e6);
+            if (g == warmup) base = s;
+            else if (base != null) failures = check(base, s);
+        }
+        if (base == null) {
+            System.out.println("too few games for a baseline (warmup " + warmup + ")");
+        } else if (!failures.isEmpty()) {
+            System.out.println("FAIL: " + String.join("; ", failures));
+            System.exit(1);
+        } else {
+            System.out.println("PASS");
+        }
+        System.exit(0);
+    }
+
+    /** Growth of the last sample over the baseline, as messages; empty if none. */
+    static List<String> check(long[] base, long[] s) {
+        List<String> f = new ArrayList<>();
+        if (s[0] > base[0] * 1.2 + 4 * 1048576) f.add(String.format("heap %.1f -> %.1f MB", base[0] / 1048576.0, s[0] / 1048576.0));
+        if (s[1] > base[1] + 2) f.add("threads " + base[1] + " -> " + s[1]);
+        if (s[2] > base[2]) f.add("timers " + base[2] + " -> " + s[2]);
+        if (s[3] > base[3]) f.add("windows " + base[3] + " -> " + s[3]);
+        if (s[4] > base[4] * 1.5 + 500_000) f.add(String.format("paint p50 %.2f -> %.2f ms", base[4] / 1e6, s[4] / 1e6));
+        return f;
+    }
+
+    /** Plays one game from the menu back to the menu (or to setup, for PLAY AGAIN). */
+    boolean playOne(int n) throws Exception {
+        boolean pvp = n % 5 == 0;
+        boolean predict = n % 3 == 0;
+        onEdt(() -> {
+            if (n % 25 == 0 && h.menuScreen.isVisible()) howTo();
+            h.throwablePerPlayer = 2;
+            h.marblesInCircle = 4 + n % 5;
+            h.numPlayers = 2;
+            h.numBots = 1 + n % 3;
+            h.turbo = HolenGame.BotTurbo.INSTANT;
+            if (h.menuScreen.isVisible()) {
+                if (pvp) {
+                    click(h.menuScreen, 512, 180);
+                } else {
+                    click(h.menuScreen, 512, 270);
+                    click(h.difficultyScreen, 512, 180 + 90 * (n % 3));
+                }
+            }
+            h.gameScreen.predict = predict;
+            click(h.setupScreen, 512, 488);
+        });
+        for (int f = 0; f < MAX_FRAMES; f++) {
+            boolean[] over = new boolean[1];
+            onEdt(() -> over[0] = frame());
+            if (over[0]) {
+                // alternate MAIN MENU and PLAY AGAIN
+                onEdt(() -> click(h.resultScreen, 512, n % 2 == 0 ? 528 : 448));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** One driven frame on the EDT; returns true once the result screen is showing. */
+    boolean frame() {
+        HolenGame.GameScreen gs = h.gameScreen;
+        if (h.resultScreen.isVisible()) return true;
+        if (humanToMove(gs)) shoot(gs);
+        for (int k = 0; k < STEPS && !h.resultScreen.isVisible(); k++) gs.updateGame();
+        gs.paintImmediately(0, 0, gs.getWidth(), gs.getHeight());
+        paintNanos.add((long) gs.governor.lastNanos);
+        return h.resultScreen.isVisible();
+    }
+
+    static boolean humanToMove(HolenGame.GameScreen gs) {
+        return gs.game != null && !(gs.game.getCurrentPlayer() instanceof HolenGame.BotPlayer) && !gs.turnShot
+                && !gs.game.moving() && !gs.input.hasShot() && gs.selected == null && gs.scrubIndex < 0;
+    }
+
+    /** Press on one of the current player's resting marbles, drag away from the nearest ring, release. */
+    void shoot(HolenGame.GameScreen gs) {
+        HolenGame.Game g = gs.game;
+        HolenGame.Player p = g.getCurrentPlayer();
+        HolenGame.Marble m = null;
+        for (HolenGame.Marble x : g.marbles) if (x.owner == p && !x.moving()) { m = x; break; }
+        if (m == null) return;
+        HolenGame.CircleField ring = g.arena.nearestRing(m.x, m.y);
+        double aim = Math.atan2(ring.cy - m.y, ring.cx - m.x) + (rnd.nextDouble() - 0.5) * 0.4;
+        double pull = 8 * (4 + rnd.nextDouble() * 14);
+        HolenGame.Camera cam = gs.camera;
+        int sx = (int) Math.round((m.x - cam.x) * cam.zoom), sy = (int) Math.round((m.y - cam.y) * cam.zoom);
+        int ex = (int) Math.round((m.x - pull * Math.cos(aim) - cam.x) * cam.zoom);
+        int ey = (int) Math.round((m.y - pull * Math.sin(aim) - cam.y) * cam.zoom);
+        mouse(gs, MouseEvent.MOUSE_PRESSED, sx, sy, InputEvent.BUTTON1_DOWN_MASK);
+        for (int i = 1; i <= 4; i++) {
+            mouse(gs, MouseEvent.MOUSE_DRAGGED, sx + (ex - sx) * i / 4, sy + (ey - sy) * i / 4, InputEvent.BUTTON1_DOWN_MASK);
+        }
+        if (gs.predict) {
+            // hold the drag so the preview refines over a few frames
+            for (int i = 0; i < HOLD_FRAMES; i++) {
+                gs.updateGame();
+                gs.paintImmediately(0, 0, gs.getWidth(), gs.getHeight());
+                paintNanos.add((long) gs.governor.lastNanos);
+            }
+        }
+        mouse(gs, MouseEvent.MOUSE_RELEASED, ex, ey, 0);
+    }
+
+    static void mouse(Component c, int id, int x, int y, int modifiers) {
+        c.dispatchEvent(new MouseEvent(c, id, System.currentTimeMillis(), modifiers, x, y, 1, false, MouseEvent.BUTTON1));
+    }
+
+    /** Opens the how-to windows from the menu and closes them again. */
+    void howTo() {
+        click(h.menuScreen, 512, 370);
+        for (Frame f : Frame.getFrames()) {
+            if (f != h && f.isVisible()) f.dispatchEvent(new WindowEvent(f, WindowEvent.WINDOW_CLOSING));
+        }
+    }
+
+    /** Clicks the button under (x, y) of a screen. */
+    static void click(JComponent screen, int x, int y) {
+        Component c = SwingUtilities.getDeepestComponentAt(screen, x, y);
+        if (!(c instanceof AbstractButton)) throw new IllegalStateException("no button at " + x + "," + y + " on " + screen.getClass().getSimpleName());
+        ((AbstractButton) c).doClick(0);
+    }
+
+    static void onEdt(Runnable r) throws Exception { SwingUtilities.invokeAndWait(r); }
+
+    /** heap after GC, threads, timers, windows, paint p50 ns, paint p95 ns. */
+    long[] sample() throws Exception {
+        long timers = liveInstances("javax.swing.Timer");
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        int[] windows = new int[1];
+        onEdt(() -> windows[0] = Window.getWindows().length);
+        // filled on the EDT; invokeAndWait orders those writes before this read
+        long[] paints = paintNanos.stream().mapToLong(Long::longValue).toArray();
+        paintNanos.clear();
+        Arrays.sort(paints);
+        long p50 = paints.length == 0 ? 0 : paints[paints.length / 2];
+        long p95 = paints.length == 0 ? 0 : paints[(int) (paints.length * 0.95)];
+        return new long[] {heap, threads, timers, windows[0], p50, p95};
+    }
+
+    /** Live instances of a class, from a class histogram (which runs a full GC first). */
+    static long liveInstances(String className) throws Exception {
+        String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+                new Object[] {null}, new String[] {String[].class.getName()});
+        for (String line : histogram.split("\n")) {
+            String[] cols = line.trim().split("\\s+");
+            if (cols.length >= 4 && cols[3].equals(className)) return Long.parseLong(cols[1]);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Live game state in a memory-mapped file, for overlays and scoreboards running as separate
+ * processes. One {@link Writer} (the game) and any number of {@link Reader}s; no sockets, and the
+ * reader copies straight out of the shared mapping.
+ *
+ * Consistency is a seqlock: the writer makes {@code seq} odd, writes the state and makes it even
+ * again. A reader takes {@code seq}, copies, and retries if it was odd or has changed.
+ *
+ * Layout (little-endian):
+ *   header   (64)  : magic "HOLF" int, version int, seq long, frame long, marble count int,
+ *                    player count int, turn index int, flags int (1 = moving, 2 = game over),
+ *                    arena width, height doubles, capacity int, pad
+ *   players (256)  : MAX_PLAYERS x { name 16 bytes UTF-8 zero-padded, rgb int, collected int,
+ *                    throwables int, bot byte, pad }
+ *   marbles        : capacity x { x, y floats, owner byte (-1 = neutral), flags byte (1 = inside,
+ *                    2 = moving), pad }
+ */
+final class StateFeed {
+    static final int MAGIC = 0x484F4C46; // "HOLF"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64, MAX_PLAYERS = 8, PLAYER_BYTES = 32, NAME_BYTES = 16, MARBLE_BYTES = 12;
+    static final int PLAYERS_AT = HEADER_SIZE, MARBLES_AT = PLAYERS_AT + MAX_PLAYERS * PLAYER_BYTES;
+    static final int SEQ = 8, FRAME = 16, MARBLES = 24, PLAYERS = 28, TURN = 32, FLAGS = 36, WIDTH = 40, HEIGHT = 48, CAPACITY = 56;
+    static final int MOVING = 1, GAME_OVER = 2;
+    static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".holen", "state.feed");
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private StateFeed() {}
+
+    static long size(int capacity) { return MARBLES_AT + (long) capacity * MARBLE_BYTES; }
+
+    /**
+     * Writer for -Dholen.feed: "true" publishes to {@link #DEFAULT_FILE}, any other value is a path.
+     * Returns null if the property is unset or the file cannot be mapped.
+     */
+    static Writer fromSystemProperty() {
+        String feed = System.getProperty("holen.feed");
+        if (feed == null || feed.equalsIgnoreCase("false")) return null;
+        Path file = feed.equalsIgnoreCase("true") ? DEFAULT_FILE : Paths.get(feed);
+        try {
+            return Writer.open(file, Integer.getInteger("holen.feed.capacity", 16384));
+        } catch (IOException e) {
+            System.err.println("state feed disabled: " + e);
+            return null;
+        }
+    }
+
+    static final class Writer implements AutoCloseable {
+        final FileChannel channel;
+        final MappedByteBuffer buf;
+        final int capacity;
+        private final byte[] name = new byte[NAME_BYTES];
+        private final String[] written = new String[MAX_PLAYERS];  // names already in the mapping
+        private long seq;
+
+        private Writer(FileChannel channel, MappedByteBuffer buf, int capacity) {
+            this.channel = channel; this.buf = buf; this.capacity = capacity;
+        }
+
+        static Writer open(Path file, int capacity) throws IOException {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size(capacity));
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            Writer w = new Writer(ch, buf, capacity);
+            // continue from an even sequence past whatever an earlier run left behind
+            long old = buf.getInt(0) == MAGIC ? (long) LONGS.getAcquire(buf, SEQ) : 0;
+            w.seq = (old + 2) & ~1L;
+            LONGS.setRelease(buf, SEQ, w.seq);
+            buf.putInt(0, MAGIC).putInt(4, VERSION).putInt(CAPACITY, capacity);
+            return w;
+        }
+
+        /** Publishes the current state. Marbles past the capacity are left out. */
+        void publish(HolenGame.Game g, long frame, boolean over) {
+            MappedByteBuffer b = buf;
+            LONGS.setOpaque(b, SEQ, seq + 1);
+            VarHandle.storeStoreFence();
+
+            int players = Math.min(MAX_PLAYERS, g.players.size());
+            int marbles = Math.min(capacity, g.marbles.size());
+            b.putLong(FRAME, frame).putInt(MARBLES, marbles).putInt(PLAYERS, players).putInt(TURN, g.turnIndex)
+                    .putInt(FLAGS, (g.moving() ? MOVING : 0) | (over ? GAME_OVER : 0))
+                    .putDouble(WIDTH, g.arena.width).putDouble(HEIGHT, g.arena.height);
+            for (int i = 0; i < players; i++) {
+                HolenGame.Player p = g.players.get(i);
+                int at = PLAYERS_AT + i * PLAYER_BYTES;
+                if (p.name != written[i]) {
+                    byte[] n = p.name.getBytes(StandardCharsets.UTF_8);
+                    Arrays.fill(name, (byte) 0);
+                    System.arraycopy(n, 0, name, 0, Math.min(NAME_BYTES, n.length));
+                    b.put(at, name);
+                    written[i] = p.name;
+                }
+                b.putInt(at + 16, p.color.getRGB()).putInt(at + 20, p.collected).putInt(at + 24, p.throwables)
+                        .put(at + 28, (byte) (p instanceof HolenGame.BotPlayer ? 1 : 0));
+            }
+            for (int i = 0; i < marbles; i++) {
+                HolenGame.Marble m = g.marbles.get(i);
+                int at = MARBLES_AT + i * MARBLE_BYTES;
+                int owner = m.owner == null ? -1 : g.players.indexOf(m.owner);
+                b.putFloat(at, (float) m.x).putFloat(at + 4, (float) m.y).put(at + 8, (byte) owner)
+                        .put(at + 9, (byte) ((m.insideCircle ? 1 : 0) | (m.moving() ? 2 : 0)));
+            }
+
+            seq += 2;
+            LONGS.setRelease(b, SEQ, seq);
+        }
+
+        @Override
+        public void close() throws IOException { channel.close(); }
+    }
+
+    /** Reader-owned copy of one consistent state; arrays grow as needed and are reused. */
+    static final class Snapshot {
+        long seq, frame;
+        int turnIndex, flags, playerCount, marbleCount;
+        double width, height;
+        final String[] names = new String[MAX_PLAYERS];
+        final byte[][] nameBytes = new byte[MAX_PLAYERS][NAME_BYTES];
+        final int[] rgb = new int[MAX_PLAYERS], collected = new int[MAX_PLAYERS], throwables = new int[MAX_PLAYERS];
+        final boolean[] bot = new boolean[MAX_PLAYERS];
+        float[] x = new float[0], y = new float[0];
+        byte[] owner = new byte[0], marbleFlags = new byte[0];
+
+        boolean moving() { return (flags & MOVING) != 0; }
+        boolean gameOver() { return (flags & GAME_OVER) != 0; }
+    }
+
+    static final class Reader implements AutoCloseable {
+        static final int MAX_RETRIES = 64;
+        final FileChannel channel;
+        final ByteBuffer buf;
+        final int capacity;
+        private final byte[] name = new byte[NAME_BYTES];
+        long retries;           // torn reads retried so far
+
+        Reader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            ByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (head.getInt(0) != MAGIC) throw new IOException("not a Holen state feed");
+            if (head.getInt(4) != VERSION) throw new IOException("unsupported state feed version " + head.getInt(4));
+            capacity = head.getInt(CAPACITY);
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size(capacity)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /** Sequence number of the last complete publish; changes whenever new state is available. */
+        long seq() { return (long) LONGS.getAcquire(buf, SEQ) & ~1L; }
+
+        /**
+         * Copies a consistent state into s. Returns false if the writer kept overlapping the copy for
+         * MAX_RETRIES attempts (or a writer died mid-publish); s is then unspecified.
+         */
+        boolean read(Snapshot s) {
+            ByteBuffer b = buf;
+            for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+                long before = (long) LONGS.getAcquire(b, SEQ);
+                if ((before & 1) != 0) { retries++; Thread.onSpinWait(); continue; }
+
+                s.frame = b.getLong(FRAME);
+                s.marbleCount = Math.min(capacity, b.getInt(MARBLES));
+                s.playerCount = Math.min(MAX_PLAYERS, b.getInt(PLAYERS));
+                s.turnIndex = b.getInt(TURN);
+                s.flags = b.getInt(FLAGS);
+                s.width = b.getDouble(WIDTH);
+                s.height = b.getDouble(HEIGHT);
+                for (int i = 0; i < s.playerCount; i++) {
+                    int at = PLAYERS_AT + i * PLAYER_BYTES;
+                    b.get(at, name);
+                    if (s.names[i] == null || !Arrays.equals(name, s.nameBytes[i])) {
+                        System.arraycopy(name, 0, s.nameBytes[i], 0, NAME_BYTES);
+                        int len = 0;
+                        while (len < NAME_BYTES && name[len] != 0) len++;
+                        s.names[i] = new String(name, 0, len, StandardCharsets.UTF_8);
+                    }
+                    s.rgb[i] = b.getInt(at + 16);
+                    s.collected[i] = b.getInt(at + 20);
+                    s.throwables[i] = b.getInt(at + 24);
+                    s.bot[i] = b.get(at + 28) != 0;
+                }
+                int n = s.marbleCount;
+                if (s.x.length < n) {
+                    int cap = Math.max(n, s.x.length * 2);
+                    s.x = new float[cap]; s.y = new float[cap]; s.owner = new byte[cap]; s.marbleFlags = new byte[cap];
+                }
+                for (int i = 0; i < n; i++) {
+                    int at = MARBLES_AT + i * MARBLE_BYTES;
+                    s.x[i] = b.getFloat(at);
+                    s.y[i] = b.getFloat(at + 4);
+                    s.owner[i] = b.get(at + 8);
+                    s.marbleFlags[i] = b.get(at + 9);
+                }
+
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.getOpaque(b, SEQ) == before) {
+                    s.seq = before;
+                    return true;
+                }
+                retries++;
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException { channel.close(); }
+    }
+}
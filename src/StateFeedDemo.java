@@ -0,0 +1,45 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Demo reader for {@link StateFeed}: a console scoreboard for a running game.
+ *
+ *   java StateFeedDemo [feedFile] [hz]
+ *
+ * Start the game with -Dholen.feed=true (or a path), then run this in another terminal. Polls the
+ * feed, and whenever the sequence has moved prints the frame, whose turn it is, the scores and how
+ * many marbles are in motion, plus the number of torn reads the seqlock had to retry.
+ */
+final class StateFeedDemo {
+    public static void main(String[] args) throws Exception {
+        Path file = args.length > 0 ? Paths.get(args[0]) : StateFeed.DEFAULT_FILE;
+        int hz = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        try (StateFeed.Reader feed = new StateFeed.Reader(file)) {
+            StateFeed.Snapshot s = new StateFeed.Snapshot();
+            long last = -1;
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                if (feed.seq() != last) {
+                    if (!feed.read(s)) {
+                        System.out.println("writer busy or stalled, retrying");
+                    } else {
+                        last = s.seq;
+                        int rolling = 0;
+                        for (int i = 0; i < s.marbleCount; i++) if ((s.marbleFlags[i] & 2) != 0) rolling++;
+                        line.setLength(0);
+                        line.append(String.format("frame %7d  turn %-6s", s.frame, s.playerCount > 0 ? s.names[s.turnIndex] : "-"));
+                        for (int i = 0; i < s.playerCount; i++) {
+                            line.append("  ").append(s.names[i]).append(' ').append(s.collected[i])
+                                    .append(" (").append(s.throwables[i]).append(" left)");
+                        }
+                        line.append(String.format("  marbles %d, %d rolling  retries %d", s.marbleCount, rolling, feed.retries));
+                        if (s.gameOver()) line.append("  GAME OVER");
+                        System.out.println(line);
+                    }
+                }
+                Thread.sleep(1000 / hz);
+            }
+        }
+    }
+}
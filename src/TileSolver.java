@@ -0,0 +1,164 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-core physics step for very large marble counts.
+ *
+ * Marbles are binned into square tiles at least one contact distance wide, so every contact is
+ * between marbles in the same or adjacent tiles. A tile task resolves pairs between its own tile
+ * and its forward neighbours (E, NE, SE, S), touching tiles [tx, tx+1] x [ty-1, ty+1]. Tiles are
+ * coloured (tx % 2) + 2 * (ty % 3): two tasks of the same colour never share a tile, so each
+ * colour phase runs its tiles concurrently without locks. Phases run in a fixed order and pairs
+ * inside a task are visited in marble-index order, so the result does not depend on the
+ * thread count.
+ *
+ * Workers only flag touched marbles; the moved list is built serially afterwards. Collision events
+ * are not published in this mode (the bus is single-threaded); the other events are unaffected.
+ *
+ * Enable with -Dholen.physicsThreads=N (0 or unset keeps the serial O(n^2) loop). A solver owns a
+ * worker pool, so create one per screen or tool and reuse it across games; close() stops the pool.
+ */
+final class TileSolver implements AutoCloseable {
+    static final double TILE = 32;      // > 2 * marble radius, with slack for positional correction
+    static final int COLORS = 6;
+    static final int INTEGRATE_CHUNK = 2048;
+    static final int TILES_PER_TASK = 8;
+
+    final ForkJoinPool pool;
+    final int threads;
+
+    // binning scratch, reused between steps
+    private int cols, rows;
+    private int[] tileOf = new int[0];
+    private int[] start = new int[0];    // tile -> first slot in order[], length tiles + 1
+    private int[] order = new int[0];    // marble indices grouped by tile, ascending within a tile
+    private final int[][] colorTiles = new int[COLORS][];
+    private final int[] colorCount = new int[COLORS];
+    private HolenGame.Marble[] ms = new HolenGame.Marble[0];
+
+    TileSolver(int threads) {
+        this.threads = Math.max(1, threads);
+        pool = new ForkJoinPool(this.threads);
+        for (int c = 0; c < COLORS; c++) colorTiles[c] = new int[16];
+    }
+
+    @Override
+    public void close() { pool.shutdown(); }
+
+    static TileSolver fromSystemProperty() {
+        int n = Integer.getInteger("holen.physicsThreads", 0);
+        return n > 0 ? new TileSolver(n) : null;
+    }
+
+    /** Integration and collision resolution; out-of-bounds removal and scoring stay in Game.step. */
+    void step(HolenGame.Game g, double dt) {
+        List<HolenGame.Marble> list = g.marbles;
+        int n = list.size();
+        if (ms.length < n) ms = new HolenGame.Marble[Math.max(n, ms.length * 2)];
+        for (int i = 0; i < n; i++) {
+            ms[i] = list.get(i);
+            ms[i].px = ms[i].x; ms[i].py = ms[i].y;
+            ms[i].hadVelocity = ms[i].vx != 0 || ms[i].vy != 0;
+        }
+
+        HolenGame.MarbleArrays flat = g.flat;
+        flat.pack(list);
+        pool.invoke(new Integrate(flat, 0, n, dt));
+        flat.unpack(list);
+        bin(g.arena, n);
+        for (int c = 0; c < COLORS; c++) {
+            if (colorCount[c] > 0) pool.invoke(new SolveTiles(colorTiles[c], 0, colorCount[c]));
+        }
+        for (int i = 0; i < n; i++) {
+            if (ms[i].hadVelocity || ms[i].touched) g.markMoved(ms[i]);
+            ms[i].touched = false;
+        }
+        Arrays.fill(ms, 0, n, null);
+    }
+
+    private void bin(HolenGame.Arena a, int n) {
+        double ox = -HolenGame.Arena.MARGIN, oy = -HolenGame.Arena.MARGIN;
+        cols = (int) Math.ceil((a.width + 2 * HolenGame.Arena.MARGIN) / TILE) + 1;
+        rows = (int) Math.ceil((a.height + 2 * HolenGame.Arena.MARGIN) / TILE) + 1;
+        int tiles = cols * rows;
+        if (start.length < tiles + 1) start = new int[tiles + 1];
+        if (tileOf.length < n) { tileOf = new int[Math.max(n, tileOf.length * 2)]; order = new int[tileOf.length]; }
+
+        // counting sort by tile keeps marble-index order inside each tile
+        Arrays.fill(start, 0, tiles + 1, 0);
+        for (int i = 0; i < n; i++) {
+            int tx = Math.max(0, Math.min(cols - 1, (int) ((ms[i].x - ox) / TILE)));
+            int ty = Math.max(0, Math.min(rows - 1, (int) ((ms[i].y - oy) / TILE)));
+            tileOf[i] = ty * cols + tx;
+            start[tileOf[i] + 1]++;
+        }
+        for (int t = 0; t < tiles; t++) start[t + 1] += start[t];
+        int[] fill = Arrays.copyOf(start, tiles);
+        for (int i = 0; i < n; i++) order[fill[tileOf[i]]++] = i;
+
+        Arrays.fill(colorCount, 0);
+        for (int t = 0; t < tiles; t++) {
+            if (start[t] == start[t + 1]) continue;
+            int c = (t % cols) % 2 + 2 * ((t / cols) % 3);
+            if (colorCount[c] == colorTiles[c].length) colorTiles[c] = Arrays.copyOf(colorTiles[c], colorCount[c] * 2);
+            colorTiles[c][colorCount[c]++] = t;
+        }
+    }
+
+    private void solveTile(int t) {
+        int tx = t % cols, ty = t / cols;
+        for (int p = start[t]; p < start[t + 1]; p++) {
+            HolenGame.Marble a = ms[order[p]];
+            for (int q = p + 1; q < start[t + 1]; q++) touch(a, ms[order[q]]);
+            if (tx + 1 < cols) {
+                if (ty > 0) against(a, t - cols + 1);
+                against(a, t + 1);
+                if (ty + 1 < rows) against(a, t + cols + 1);
+            }
+            if (ty + 1 < rows) against(a, t + cols);
+        }
+    }
+
+    private void against(HolenGame.Marble a, int t) {
+        for (int q = start[t]; q < start[t + 1]; q++) touch(a, ms[order[q]]);
+    }
+
+    private static void touch(HolenGame.Marble a, HolenGame.Marble b) {
+        if (HolenGame.Game.collide(a, b) != HolenGame.Game.NO_CONTACT) { a.touched = true; b.touched = true; }
+    }
+
+    private static class Integrate extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final HolenGame.MarbleArrays a;
+        final int lo, hi;
+        final double dt;
+        Integrate(HolenGame.MarbleArrays a, int lo, int hi, double dt) { this.a = a; this.lo = lo; this.hi = hi; this.dt = dt; }
+        @Override
+        protected void compute() {
+            if (hi - lo <= INTEGRATE_CHUNK) {
+                IntegrationKernel.SELECTED.integrate(a.x, a.y, a.vx, a.vy, lo, hi, dt);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Integrate(a, lo, mid, dt), new Integrate(a, mid, hi, dt));
+            }
+        }
+    }
+
+    private class SolveTiles extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final int[] tiles;
+        final int lo, hi;
+        SolveTiles(int[] tiles, int lo, int hi) { this.tiles = tiles; this.lo = lo; this.hi = hi; }
+        @Override
+        protected void compute() {
+            if (hi - lo <= TILES_PER_TASK) {
+                for (int i = lo; i < hi; i++) solveTile(tiles[i]);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SolveTiles(tiles, lo, mid), new SolveTiles(tiles, mid, hi));
+            }
+        }
+    }
+}